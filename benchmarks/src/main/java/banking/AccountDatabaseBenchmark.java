@@ -0,0 +1,137 @@
+package banking;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Single-teller costs of the AccountDatabase hot paths on books of 1k to 10M accounts.
+Lookups and postings pick accounts in a random but fixed order, so large books miss the caches as a busy bank would.
+Run with "-prof gc" to see the bytes allocated per operation next to the time.
+@author Dharma Wijesinghe, Min Sun You
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:MaxRAMPercentage=75"})
+public class AccountDatabaseBenchmark {
+    private static final int PICKS = 1 << 16; //a power of two
+    private static final int BATCH = 1024;
+    private static final long AMOUNT = 100; //$1.00 in cents
+    private static final long SEED = 42;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private Account [] accounts;
+    private AccountKey [] keys;
+    private AccountDatabase database;
+    private int [] picks; //account positions in the order they are used
+    private int next;
+    private int period; //each month-end run posts a new period, so no run finds the book already posted
+    private int [] batchIds;
+    private long [] batchAmounts;
+    private byte [] batchOperations;
+    private byte [] batchResults;
+
+    /**
+    Opens the book and draws the order accounts are picked in.
+    */
+    @Setup
+    public void setUp() {
+        accounts = Books.accounts(size);
+        keys = Books.keys(accounts);
+        database = Books.open(accounts);
+        SplittableRandom random = new SplittableRandom(SEED);
+        picks = new int[PICKS];
+        for(int i = 0; i < PICKS; i++) {
+            picks[i] = random.nextInt(size);
+        }
+        batchIds = new int[BATCH];
+        batchAmounts = new long[BATCH];
+        batchOperations = new byte[BATCH];
+        batchResults = new byte[BATCH];
+        for(int i = 0; i < BATCH; i++) {
+            batchIds[i] = database.findAcc(keys[random.nextInt(size)]);
+            batchAmounts[i] = AMOUNT;
+            batchOperations[i] = i % 2 == 0 ? AccountDatabase.POST_DEPOSIT : AccountDatabase.POST_WITHDRAW;
+        }
+    }
+
+    /**
+    Returns the position of the next account to use.
+    @return int the position in accounts and keys.
+    */
+    private int pick() {
+        return picks[next++ & (PICKS - 1)];
+    }
+
+    @Benchmark
+    public int findAccByKey() {
+        return database.findAcc(keys[pick()]);
+    }
+
+    @Benchmark
+    public int findAccByAccount() {
+        return database.findAcc(accounts[pick()]);
+    }
+
+    @Benchmark
+    public boolean deposit() {
+        return database.deposit(keys[pick()], AMOUNT);
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        return database.withdraw(keys[pick()], AMOUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int postBatch() {
+        return database.post(batchIds, batchAmounts, batchOperations, BATCH, batchResults);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MonthEndSummary updateBalancesSerial() {
+        return database.updateBalances(++period, 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MonthEndSummary updateBalancesParallel() {
+        return database.updateBalances(++period, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long printByAccountType() throws IOException {
+        Books.Sink out = new Books.Sink();
+        database.printByAccountType(out);
+        return out.length;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long printFeeAndInterest() throws IOException {
+        Books.Sink out = new Books.Sink();
+        database.printFeeAndInterest(out);
+        return out.length;
+    }
+}
@@ -0,0 +1,78 @@
+package banking;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Whole-book scans of one account object per account against primitive columns: the month-end update
+and the reports, each on a single thread so the layouts are compared and not the thread counts.
+AccountDatabaseBenchmark has the month-end update of the object store on every core.
+@author Dharma Wijesinghe, Min Sun You
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:MaxRAMPercentage=75"})
+public class AccountStoreScanBenchmark {
+    @Param({"objects", "columns"})
+    String layout;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private AccountStore store;
+    private int period; //each month-end run posts a new period, so no run finds the book already posted
+
+    /**
+    Opens the book into the store with the layout measured.
+    */
+    @Setup
+    public void setUp() {
+        Account [] accounts = Books.accounts(size);
+        if(layout.equals("columns")) {
+            store = Books.open(new ColumnarAccountDatabase(size), accounts);
+        } else {
+            store = Books.open(accounts);
+        }
+    }
+
+    @Benchmark
+    public MonthEndSummary updateBalances() {
+        return store.updateBalances(++period, 1);
+    }
+
+    @Benchmark
+    public long print() throws IOException {
+        Books.Sink out = new Books.Sink();
+        store.print(out);
+        return out.length;
+    }
+
+    @Benchmark
+    public long printByAccountType() throws IOException {
+        Books.Sink out = new Books.Sink();
+        store.printByAccountType(out);
+        return out.length;
+    }
+
+    @Benchmark
+    public long printFeeAndInterest() throws IOException {
+        Books.Sink out = new Books.Sink();
+        store.printFeeAndInterest(out);
+        return out.length;
+    }
+}
@@ -0,0 +1,110 @@
+package banking;
+
+/**
+Builds books of accounts for the benchmarks.
+Holders own three accounts each: a Checking or College Checking, a Savings and a Money Market,
+the way a real book repeats holders across account types.
+@author Dharma Wijesinghe, Min Sun You
+*/
+final class Books {
+    static final long OPENING_BALANCE = 100000000; //$1,000,000.00 in cents, enough for every withdrawal of a run
+    private static final int ACCOUNTS_PER_HOLDER = 3;
+    private static final int COLLEGE_EVERY = 4; //one holder in four has college checking
+    private static final int CAMPUSES = 3;
+    private static final Date DOB = new Date("1/2/1990");
+
+    private Books() {
+    }
+
+    /**
+    Builds the accounts of a book, none of them opened yet.
+    @param size the number of accounts.
+    @return Account[] the accounts.
+    */
+    static Account [] accounts(int size) {
+        Account [] accounts = new Account[size];
+        Profile holder = null;
+        for(int i = 0; i < size; i++) {
+            int holderNumber = i / ACCOUNTS_PER_HOLDER;
+            if(i % ACCOUNTS_PER_HOLDER == 0) {
+                holder = new Profile("First" + holderNumber, "Last" + holderNumber, DOB);
+            }
+            switch(i % ACCOUNTS_PER_HOLDER) {
+            case 0:
+                if(holderNumber % COLLEGE_EVERY == 0) {
+                    accounts[i] = new CollegeChecking(holder, false, OPENING_BALANCE, holderNumber % CAMPUSES);
+                } else {
+                    accounts[i] = new Checking(holder, false, OPENING_BALANCE);
+                }
+                break;
+            case 1:
+                accounts[i] = new Savings(holder, false, OPENING_BALANCE, holderNumber % 2);
+                break;
+            default:
+                accounts[i] = new MoneyMarket(holder, false, OPENING_BALANCE);
+            }
+        }
+        return accounts;
+    }
+
+    /**
+    Opens accounts into a new database sized for them.
+    @param accounts the accounts.
+    @return AccountDatabase the database.
+    */
+    static AccountDatabase open(Account [] accounts) {
+        return open(new AccountDatabase(accounts.length), accounts);
+    }
+
+    /**
+    Opens accounts into a store.
+    @param store the store, empty.
+    @param accounts the accounts.
+    @param <S> the kind of store.
+    @return S the store.
+    */
+    static <S extends AccountStore> S open(S store, Account [] accounts) {
+        for(Account account : accounts) {
+            store.open(account);
+        }
+        return store;
+    }
+
+    /**
+    Returns the key of every account.
+    @param accounts the accounts.
+    @return AccountKey[] the keys, in the same order.
+    */
+    static AccountKey [] keys(Account [] accounts) {
+        AccountKey [] keys = new AccountKey[accounts.length];
+        for(int i = 0; i < accounts.length; i++) {
+            keys[i] = AccountKey.of(accounts[i]);
+        }
+        return keys;
+    }
+
+    /**
+    An output that keeps only the number of characters written, so printing is measured without the I/O.
+    */
+    static final class Sink implements Appendable {
+        long length;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            length += csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            length += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            length++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Time for a MappedAccountDatabase to come back after a restart with a book of 1k to 1M accounts:
+opening the file, which rebuilds the lookup table from the records, and finding one account.
+The file stays in the page cache between measurements, so this is the cost of the rebuild, not of the disk.
+@author Dharma Wijesinghe, Min Sun You
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:MaxRAMPercentage=75"})
+public class MappedRestartBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private Path directory;
+    private Path file;
+    private AccountKey last; //the last account written, found after each restart
+
+    /**
+    Writes the book to an account file once.
+    @throws IOException if the file cannot be written.
+    */
+    @Setup
+    public void writeBook() throws IOException {
+        directory = Files.createTempDirectory("restart");
+        file = directory.resolve("accounts.acc");
+        Account [] accounts = Books.accounts(size);
+        last = AccountKey.of(accounts[size - 1]);
+        Books.open(new MappedAccountDatabase(file), accounts).close();
+    }
+
+    /**
+    Removes the account file.
+    @throws IOException if it cannot be deleted.
+    */
+    @TearDown
+    public void deleteBook() throws IOException {
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int restart() throws IOException {
+        try(MappedAccountDatabase database = new MappedAccountDatabase(file)) {
+            return database.findAcc(last);
+        }
+    }
+}
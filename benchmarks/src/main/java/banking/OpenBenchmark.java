@@ -0,0 +1,60 @@
+package banking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+Time to open a whole book of 1k to 10M accounts into an empty AccountDatabase.
+Each measurement opens every account once, into a database that starts at its default size,
+so the growth of the account array and the index is included.
+@author Dharma Wijesinghe, Min Sun You
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:MaxRAMPercentage=75"})
+public class OpenBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private Account [] accounts;
+    private AccountDatabase database;
+
+    /**
+    Builds the accounts once; opening them does not change them.
+    */
+    @Setup(Level.Trial)
+    public void buildAccounts() {
+        accounts = Books.accounts(size);
+    }
+
+    /**
+    Starts every measurement from an empty database.
+    */
+    @Setup(Level.Iteration)
+    public void emptyDatabase() {
+        database = new AccountDatabase();
+    }
+
+    @Benchmark
+    public AccountDatabase openBook() {
+        for(Account account : accounts) {
+            database.open(account);
+        }
+        return database;
+    }
+}
@@ -0,0 +1,91 @@
+package banking;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+Throughput of many tellers sharing one AccountDatabase, at 1, 2, 4 and so on up to one thread per core.
+A small book makes tellers meet on the same lock stripes; a large one spreads them out.
+Run main to measure every thread count in turn, or pick one with the jar's -t option.
+@author Dharma Wijesinghe, Min Sun You
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1) //main and -t override it
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:MaxRAMPercentage=75"})
+public class TellerThroughputBenchmark {
+    private static final long AMOUNT = 100; //$1.00 in cents
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    private AccountKey [] keys;
+    private AccountDatabase database;
+
+    /**
+    Runs the benchmarks at every power of two threads up to the number of processors, then at that number,
+    so the results show how throughput scales.
+    @param args not used.
+    @throws RunnerException if a benchmark cannot be run.
+    */
+    public static void main(String [] args) throws RunnerException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        for(int threads = 1; threads < processors * 2; threads *= 2) {
+            int count = Math.min(threads, processors);
+            new Runner(new OptionsBuilder().include(TellerThroughputBenchmark.class.getSimpleName()).threads(count).build()).run();
+            if(count == processors) {
+                break;
+            }
+        }
+    }
+
+    /**
+    Opens the book shared by every teller.
+    */
+    @Setup
+    public void setUp() {
+        Account [] accounts = Books.accounts(size);
+        keys = Books.keys(accounts);
+        database = Books.open(accounts);
+    }
+
+    @Benchmark
+    public boolean findAcc() {
+        return database.findAcc(keys[ThreadLocalRandom.current().nextInt(size)]) >= 0;
+    }
+
+    @Benchmark
+    public boolean depositOrWithdraw() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AccountKey key = keys[random.nextInt(size)];
+        if(random.nextBoolean()) {
+            return database.deposit(key, AMOUNT);
+        }
+        return database.withdraw(key, AMOUNT);
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return database.transfer(keys[random.nextInt(size)], keys[random.nextInt(size)], AMOUNT);
+    }
+}
@@ -1,7 +1,5 @@
 package banking;
 
-import java.text.DecimalFormat;
-
 /**
 This class represents common data and methods of all Accounts.
 Every other type of accounts share the data fields and methods in this class.
@@ -10,53 +8,61 @@ Every other type of accounts share the data fields and methods in this class.
 public abstract class Account { //same person can hold different types of accounts
 
     protected Profile holder;
-    protected boolean closed;
-    protected double balance;
-    public static final int GROUPING_SIZE = 3;
+    protected volatile boolean closed; //read without locks by AccountDatabase lookups
+    protected long balance; //in cents
+    protected int accruedPeriod; //last month-end posted to this account, yyyymm, 0 if none
+    private static final int HASH_MULTIPLIER = 31;
 
     /**
     Helps initialize the data fields for subclasses.
     @param holder the Profile of the account.
     @param closed the boolean value representing if its closed or open
-    @param balance the initial balance
+    @param balance the initial balance in cents
     */
-    public Account(Profile holder, boolean closed, double balance) {
+    public Account(Profile holder, boolean closed, long balance) {
         this.holder = holder;
         this.closed = closed;
         this.balance = balance;
     }
     
     /**
-    Determines whether 2 accounts have the same profile.
+    Determines whether 2 accounts are of the same type and have the same profile.
     @param obj the object to compare with.
     @return true if accounts are equal, false otherwise.
     */
     @Override
-    public boolean equals(Object obj) { //What is purpose of this if we're going to override it in subclass?
+    public boolean equals(Object obj) {
         if(obj instanceof Account) {
             Account account = (Account) obj;
-            return this.holder.equals(account.holder);
+            return this.getAccountType() == account.getAccountType() && this.holder.equals(account.holder);
         }
         return false;
     }
     
+    /**
+    Computes a hash code from the holder and the account type.
+    Consistent with equals, which compares both.
+    @return the hash code of this account.
+    */
+    @Override
+    public int hashCode() {
+        return HASH_MULTIPLIER * holder.hashCode() + getType().hashCode();
+    }
+    
     /**
     Returns string representation of an account.
     @return String the string representation of this account.
     */
     @Override
     public String toString() {
-        DecimalFormat formatObj = new DecimalFormat("###,##0.00");
-        formatObj.setGroupingUsed(true);
-        formatObj.setGroupingSize(GROUPING_SIZE);
-        return this.holder.toString() + "::Balance $" + formatObj.format(balance);
+        return this.holder.toString() + "::Balance $" + Money.format(balance);
     }    
     
     /**
     Subtracts the balance with given amount.
-    @param amount the amount to subtract
+    @param amount the amount to subtract in cents
     */
-    public void withdraw(double amount) {
+    public void withdraw(long amount) {
         if((balance - amount) > 0) {
             balance -= amount;
         }
@@ -64,25 +70,59 @@ public abstract class Account { //same person can hold different types of accoun
     
     /**
     Adds amount to balance.
-    @param amount the amount to add.
+    @param amount the amount to add in cents.
     */
-    public void deposit(double amount) {
+    public void deposit(long amount) {
         this.balance += amount;       
     }
     
+    /**
+    Reopens this closed account with the details of a new one of the same type.
+    @param opening the account being opened, holding the new balance and options.
+    */
+    public void reopen(Account opening) {
+        this.balance = opening.balance;
+        reopened(opening);
+        this.closed = false;
+    }
+    
+    /**
+    Takes the type-specific details of an account being reopened.
+    Does nothing unless overridden.
+    @param opening the account being opened.
+    */
+    protected void reopened(Account opening) {
+    }
+    
+    /**
+    Closes this account, emptying it and resetting its type-specific state.
+    */
+    public void close() {
+        this.closed = true;
+        this.balance = 0;
+        reset();
+    }
+    
+    /**
+    Resets the type-specific state of an account being closed.
+    Does nothing unless overridden.
+    */
+    protected void reset() {
+    }
+    
     /**
     Denotes that this method must be implemented in subclasses.
     Calculates monthly interest from annual interest rate.
-    @return double the monthly interest.
+    @return long the monthly interest in cents.
     */
-    public abstract double monthlyInterest(); //return the monthly interest
+    public abstract long monthlyInterest(); //return the monthly interest
     
     /**
     Denotes this method must return the fee for an account and implemented.
     Returns the fee of a particular account.
-    @return double the monthly fee.
+    @return long the monthly fee in cents.
     */
-    public abstract double fee(); //return the monthly fee
+    public abstract long fee(); //return the monthly fee
     
     /**
     Denotes that this method must return the type of an account and implemented.
@@ -90,6 +130,12 @@ public abstract class Account { //same person can hold different types of accoun
     */
     public abstract String getType(); //return the account type (class name)
     
+    /**
+    Denotes that this method must return the type of an account and implemented.
+    @return AccountType the type of account.
+    */
+    public abstract AccountType getAccountType();
+    
     /**
     Denotes that this method must be implemented in subclasses
     Updates the balance with fees and monthly interest.
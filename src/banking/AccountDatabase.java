@@ -1,20 +1,78 @@
 package banking;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleConsumer;
 
 /**
 Holds all the accounts in an array.
 Defines operations for each account.
+Safe for many tellers at once: changes to an account hold the lock of its stripe, chosen by holder and type,
+so tellers working on different accounts rarely wait for each other. Opening a new account journals it
+and reserves its slot under the lock that appends it, so the journal lists new accounts in the order they
+are added, then waits for the record to reach the disk after releasing that lock, so opens share disk writes.
+Lookups such as findAcc and isClosed take no lock at all.
+With a journal, every change is recorded and on disk before it is made, so a change that cannot be
+recorded leaves the database as it was.
+Month-end updates take every stripe, so they see no account half changed. Snapshots take every stripe
+only long enough to fix their point in time, then copy accounts one by one while tellers carry on:
+a teller about to change an account that is not copied yet copies it first (copy-on-write).
+Prints take no lock either and may mix balances from before and after changes made while printing.
 @author Dharma Wijesinghe, Min Sun You
 */
-public class AccountDatabase {
-    private Account [] accounts;
-    private int numAcct;
+public class AccountDatabase implements AccountStore {
+    private volatile Account [] accounts; //replaced, never shrunk in place, when it grows
+    private final ConcurrentHashMap<AccountKey, Integer> index;
+    private final ConcurrentHashMap<Profile, List<Account>> holders; //every account a holder owns, open or closed; also the customer registry
+    private final ReentrantLock [] stripes;
+    private final Object appendLock = new Object(); //guards appending to accounts, reserved and numAcct
+    private final ReentrantLock snapshotLock = new ReentrantLock(); //guards starting automatic snapshots
+    private final Object captureLock = new Object(); //guards starting and finishing a capture
+    private volatile Capture capture; //the image being copied, null when none is
+    private volatile Account [] sortedByType; //cached view for printByAccountType, stale when shorter than numAcct
+    private TransactionJournal journal; //null when changes are not journaled
+    private Path snapshotFile; //null when snapshots are not taken automatically
+    private ExecutorService snapshotWriter;
+    private long snapshotInterval;
+    private long snapshotSequence; //journal sequence of the latest snapshot started
+    private Future<Long> pendingSnapshot;
+    private volatile int numAcct; //accounts published, every slot below it holds an account on disk
+    private int reserved; //slots taken by opens, published or still waiting for the journal
+    //Operations and results of posted entries
+    public static final byte POST_DEPOSIT = 0;
+    public static final byte POST_WITHDRAW = 1;
+    public static final byte POSTED = 0;
+    public static final byte POST_NOT_FOUND = 1;
+    public static final byte POST_INSUFFICIENT_FUNDS = 2;
+    public static final byte POST_INVALID = 3; //amount not positive, unknown operation or balance over Money.MAX_AMOUNT
+    public static final byte POST_CLOSED = 4; //the account is closed, as transfer refuses it
+    public static final int MAX_NAME_BYTES = 255; //of a first or last name in UTF-8, so any journal record or snapshot entry holds it
+    private static final int MAX_UTF8_BYTES_PER_CHAR = 3;
     private static final int NOT_FOUND = -1;
+    private static final int POSITION_BITS = 32;
+    private static final long POSITION_MASK = 0xFFFFFFFFL;
+    private static final int STRIPES = 64; //a power of two
     private static final int INITIAL_SIZE = 4;
     private static final int INITIAL_VALUE_NUMBACCT = 0;
-    private static final int GROWTH_VALUE = 4;
-    private static final int GROUPING_SIZE = 3;
+    private static final int GROWTH_FACTOR = 2;
+    private static final float INDEX_LOAD_FACTOR = 0.75f;
+    private static final int MONTH_END_CHUNK = 4096;
+    private static final int PROGRESS_BATCH = 4096; //accounts copied into an image between progress reports
+    private static final DoubleConsumer NO_PROGRESS = copied -> { };
+    private static final char LINE_END = '\n';
+    private static final Comparator<Account> BY_TYPE = Comparator.comparing(Account::getAccountType); //declared in type name order
 
     /**
     Instantiates an AccountDatabase.
@@ -22,34 +80,309 @@ public class AccountDatabase {
     Sets numAcct to 0.
     */
     public AccountDatabase() {
-        this.accounts = new Account[INITIAL_SIZE];
+        this(INITIAL_SIZE);
+    }
+    
+    /**
+    Instantiates an AccountDatabase sized for a bulk load.
+    Sets numAcct to 0.
+    @param initialCapacity the number of accounts the database can hold before it grows.
+    */
+    public AccountDatabase(int initialCapacity) {
+        if(initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative: " + initialCapacity);
+        }
+        this.accounts = new Account[Math.max(initialCapacity, INITIAL_SIZE)];
+        this.index = new ConcurrentHashMap<AccountKey, Integer>((int) (initialCapacity / INDEX_LOAD_FACTOR) + 1, INDEX_LOAD_FACTOR);
+        this.holders = new ConcurrentHashMap<Profile, List<Account>>();
+        this.stripes = new ReentrantLock[STRIPES];
+        for(int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
         this.numAcct = INITIAL_VALUE_NUMBACCT;
     }
     
+    /**
+    Returns the lock guarding an account, chosen by its holder and type.
+    @param hash the hash code of the account or of its AccountKey, which are equal.
+    @return ReentrantLock the stripe lock.
+    */
+    private ReentrantLock stripeOf(int hash) {
+        return stripes[stripeIndex(hash)];
+    }
+    
+    /**
+    Returns the position of an account's lock among the stripes.
+    Locks are always taken in increasing position, so two tellers never wait for each other in a cycle.
+    @param hash the hash code of the account or of its AccountKey, which are equal.
+    @return int the stripe position.
+    */
+    private static int stripeIndex(int hash) {
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+    
+    /**
+    Takes every stripe lock, in order, so no account changes until unlockAll.
+    */
+    private void lockAll() {
+        for(ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+    
+    /**
+    Takes the stripe locks whose bits are set, in order.
+    @param mask bit i is set to take stripe i.
+    */
+    private void lockStripes(long mask) {
+        for(int i = 0; i < STRIPES; i++) {
+            if((mask & (1L << i)) != 0) {
+                stripes[i].lock();
+            }
+        }
+    }
+    
+    /**
+    Releases the stripe locks taken by lockStripes.
+    @param mask the same mask passed to lockStripes.
+    */
+    private void unlockStripes(long mask) {
+        for(int i = STRIPES - 1; i >= 0; i--) {
+            if((mask & (1L << i)) != 0) {
+                stripes[i].unlock();
+            }
+        }
+    }
+    
+    /**
+    Releases every stripe lock taken by lockAll.
+    */
+    private void unlockAll() {
+        for(int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+    
+    /**
+    Journals every later change to the database before it is acknowledged.
+    Replay the journal into this database before setting it.
+    @param journal the journal to append to, null to stop journaling.
+    */
+    public void setJournal(TransactionJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+    Appends a change to the journal, if there is one, and waits until it is on disk.
+    Called before the change is made, so the change is skipped if this throws.
+    @param operation the journal operation.
+    @param account the account changed.
+    @param amount the opening balance, deposit or withdrawal in cents.
+    */
+    private void journal(byte operation, Account account, long amount) {
+        if(journal != null) {
+            journal.record(operation, account, amount);
+        }
+    }
+    
+    /**
+    Takes a snapshot every given number of journaled changes, so recovery only replays a short journal tail.
+    Snapshots are written by the executor; the journal is truncated after each one is on disk.
+    @param file the path of the snapshot file.
+    @param executor runs the snapshot writes.
+    @param interval the number of journaled changes between snapshots.
+    @param sequence the journal sequence of the snapshot the database was restored from, 0 if none.
+    @throws IllegalStateException if no journal is set, since snapshots are counted in journaled changes.
+    */
+    public void setSnapshots(Path file, ExecutorService executor, long interval, long sequence) {
+        if(journal == null) {
+            throw new IllegalStateException("Set a journal before taking snapshots automatically.");
+        }
+        this.snapshotFile = file;
+        this.snapshotWriter = executor;
+        this.snapshotInterval = interval;
+        this.snapshotSequence = sequence;
+    }
+    
+    /**
+    Starts a snapshot if enough changes were journaled since the last one and it has finished.
+    Called after a change has released its stripe, since the snapshot takes them all.
+    */
+    private void snapshotIfDue() {
+        TransactionJournal log = journal;
+        if(snapshotFile == null || log == null || log.appendedSequence() - snapshotSequence < snapshotInterval) {
+            return;
+        }
+        if(!snapshotLock.tryLock()) {
+            return; //another teller is starting one
+        }
+        try {
+            if(log.appendedSequence() - snapshotSequence < snapshotInterval) {
+                return;
+            }
+            if(capture != null || (pendingSnapshot != null && !pendingSnapshot.isDone())) {
+                return;
+            }
+            pendingSnapshot = snapshot(snapshotFile, snapshotWriter);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+    
+    /**
+    Copies every account into a point-in-time image that later changes do not affect.
+    Tellers are held up only while the point in time is fixed, not while the accounts are copied.
+    @return AccountSnapshot the image, tagged with the current journal sequence.
+    */
+    public AccountSnapshot image() {
+        return finishCapture(beginCapture(), NO_PROGRESS);
+    }
+    
+    /**
+    Copies every account into a point-in-time image, reporting how far the copy has got.
+    The progress listener may throw, for example a CancellationException, to stop the copy; the database is left as it was.
+    @param progress given the share of the accounts copied so far, from 0 to 1, after every batch.
+    @return AccountSnapshot the image, tagged with the current journal sequence.
+    */
+    public AccountSnapshot image(DoubleConsumer progress) {
+        return finishCapture(beginCapture(), progress);
+    }
+    
+    /**
+    Fixes the point in time of an image, holding every stripe only to read the journal sequence and
+    the number of accounts. From then on, tellers copy an account into the image before changing it.
+    Waits for an earlier capture to finish, since one image is copied at a time.
+    @return Capture the image to fill.
+    */
+    private Capture beginCapture() {
+        boolean interrupted = false;
+        try {
+            synchronized(captureLock) {
+                while(capture != null) {
+                    try {
+                        captureLock.wait();
+                    } catch(InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                int count = numAcct;
+                while(true) {
+                    AccountSnapshot image = new AccountSnapshot(0, count); //allocated before taking the stripes
+                    boolean [] copied = new boolean[count];
+                    lockAll();
+                    try {
+                        if(numAcct == count) { //opens hold a stripe, so no account is added while every stripe is held
+                            image.setSequence(journal == null ? 0 : journal.appendedSequence());
+                            capture = new Capture(image, copied, accounts);
+                            return capture;
+                        }
+                        count = numAcct;
+                    } finally {
+                        unlockAll();
+                    }
+                }
+            }
+        } finally {
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+    Copies every account not yet copied by a teller, taking each account's stripe in turn.
+    The capture is ended even if the progress listener throws.
+    @param current the capture started by beginCapture.
+    @param progress given the share of the accounts copied so far after every batch.
+    @return AccountSnapshot the finished image.
+    */
+    private AccountSnapshot finishCapture(Capture current, DoubleConsumer progress) {
+        try {
+            int count = current.copied.length;
+            for(int i = 0; i < count; i++) {
+                if(i % PROGRESS_BATCH == 0) {
+                    progress.accept((double) i / count);
+                }
+                ReentrantLock stripe = stripeOf(current.accounts[i].hashCode());
+                stripe.lock();
+                try {
+                    current.copy(i);
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            synchronized(captureLock) {
+                capture = null;
+                captureLock.notifyAll();
+            }
+        }
+        return current.image;
+    }
+    
+    /**
+    Copies an account into the image being captured, if there is one, before a teller changes it.
+    Called with the account's stripe held.
+    @param accountIndex the position of the account about to change.
+    */
+    private void preserve(int accountIndex) {
+        Capture current = capture;
+        if(current != null) {
+            current.copy(accountIndex);
+        }
+    }
+    
+    /**
+    Takes a point-in-time snapshot of every account.
+    The point in time is fixed on the calling thread; copying the accounts, encoding, writing and
+    truncating the journal happen on the executor while the database keeps changing.
+    @param file the path of the snapshot file.
+    @param executor runs the copy and the write.
+    @return Future the journal sequence the snapshot was taken at, once it is on disk.
+    */
+    public Future<Long> snapshot(Path file, ExecutorService executor) {
+        TransactionJournal log = journal;
+        Capture started = beginCapture();
+        long sequence = started.image.sequence();
+        snapshotSequence = sequence;
+        try {
+            return executor.submit(() -> {
+                AccountSnapshot image = finishCapture(started, NO_PROGRESS);
+                image.write(file);
+                if(log != null) {
+                    log.truncate(sequence);
+                }
+                return sequence;
+            });
+        } catch(RuntimeException e) {
+            finishCapture(started, NO_PROGRESS); //ends the capture so later ones do not wait for it forever
+            throw e;
+        }
+    }
+    
     /**
     Gets the number of accounts in database.
     @return numAcct the number of accounts.
     */
+    @Override
     public int sizeOfDatabase() {
         return this.numAcct;
     }
     
     /**
     Attempts to find the account in parameter.
-    @param account the Account to find
+    Looks the holder and account type up in the hash index.
+    @param key the holder and type of the account to find.
     @return NOT_FOUND if not found, the index of account otherwise.
     */
-    private int find(Account account) { 
-        if(accounts[0] == null) {
+    private int find(AccountKey key) { 
+        Integer foundIndex = index.get(key);
+        if(foundIndex == null) {
             return NOT_FOUND;
         }
-        for(int i = 0; i < numAcct; i++) {
-            if(accounts[i].equals(account)) {
-                return i;
-            }
-        }
-        return NOT_FOUND;
+        return foundIndex;
     }
+
     
     /**
     Tries to find an account
@@ -57,7 +390,72 @@ public class AccountDatabase {
     @return NOT_FOUND if not found, the index of account otherwise.
     */
     public int findAcc(Account account) {
-        return find(account);
+        return find(AccountKey.of(account));
+    }
+    
+    /**
+    Tries to find an account by its holder and type.
+    @param key the holder and type of the account to find.
+    @return NOT_FOUND if not found, the index of account otherwise.
+    */
+    @Override
+    public int findAcc(AccountKey key) {
+        return find(key);
+    }
+    
+    /**
+    Returns the Profile shared by the accounts of a holder, so callers can look accounts up with it
+    and compare holders by reference.
+    @param holder a Profile of the holder.
+    @return the Profile the database holds for that person, or holder itself if the person has no account.
+    */
+    @Override
+    public Profile customer(Profile holder) {
+        List<Account> held = holders.get(holder);
+        if(held == null || held.isEmpty()) {
+            return holder;
+        }
+        return held.get(0).holder;
+    }
+    
+    /**
+    Returns all the accounts held by a person, open or closed.
+    @param holder the Profile of the account holder.
+    @return an unmodifiable list of the holder's accounts, empty if the holder has none.
+    */
+    public List<Account> accountsOf(Profile holder) {
+        List<Account> held = holders.get(holder);
+        if(held == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(held);
+    }
+    
+    /**
+    Finds the checking-family account (Checking or College Checking) of a holder.
+    A holder can own at most one of them, open or closed.
+    @param holder the Profile of the account holder.
+    @return the checking-family account, null if the holder has none.
+    */
+    public Account findCheckingAccount(Profile holder) {
+        List<Account> held = holders.get(holder);
+        if(held != null) {
+            for(Account account : held) {
+                if(account instanceof Checking) {
+                    return account;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+    Checks whether a holder owns a checking-family account (Checking or College Checking).
+    @param holder the Profile of the account holder.
+    @return true if the holder has one, open or closed, false otherwise.
+    */
+    public boolean hasCheckingAccount(Profile holder) {
+        return findCheckingAccount(holder) != null;
     }
     
     /**
@@ -67,9 +465,19 @@ public class AccountDatabase {
     @return true if account is closed, false otherwise
     */
     public boolean isClosed(Account account) {
-        int foundIndex = find(account);
+        return isClosed(AccountKey.of(account));
+    }
+    
+    /**
+    Checks whether the account with the given holder and type is closed.
+    @param key the holder and type of the account.
+    @return true if account is closed, false otherwise
+    */
+    @Override
+    public boolean isClosed(AccountKey key) {
+        int foundIndex = find(key);
         if(foundIndex != NOT_FOUND) {
-            if(accounts[foundIndex].closed == true) {
+            if(accounts[foundIndex].closed == true) { //closed is volatile, so no lock is needed
                 return true;
             }
         }
@@ -77,54 +485,149 @@ public class AccountDatabase {
     }
     
     /**
-    Grows the account database array by size 4
+    Doubles the size of the account database array.
+    Appends are amortized constant time.
     */
     private void grow() { 
-        Account [] copy = new Account[this.accounts.length + GROWTH_VALUE]; 
-        for(int i = 0; i < this.accounts.length; i++) {
-            copy[i] = this.accounts[i];
-        }
+        resize(this.accounts.length * GROWTH_FACTOR);
+    }
+    
+    /**
+    Copies the accounts into a new array of the given size.
+    Readers keep using the old array until the new one is published, and both hold every account.
+    @param newSize the length of the new array, at least the number of reserved slots.
+    */
+    private void resize(int newSize) {
+        Account [] copy = new Account[newSize]; 
+        System.arraycopy(this.accounts, 0, copy, 0, reserved);
         accounts = copy;
     }
     
+    /**
+    Shrinks the account database array to the number of accounts it holds.
+    Useful after a bulk load to give back unused slots.
+    */
+    public void trimToSize() {
+        synchronized(appendLock) {
+            if(accounts.length > reserved) {
+                resize(Math.max(reserved, INITIAL_SIZE));
+            }
+        }
+    }
+    
     /**
     Opens a given account to the database.
+    A holder can own a Checking or a College Checking account, open or closed, but not both.
+    Opening either holds the stripes of both, so two tellers cannot open one of each for the same holder.
     @param account the Account to open.
-    @return true if account is opened, false otherwise.
+    @return true if account is opened, false if it is open already or the holder has the other checking account.
+    @throws IllegalArgumentException if a name of the holder is longer than MAX_NAME_BYTES in UTF-8.
     */
+    @Override
     public boolean open(Account account) {
-        if(accounts[accounts.length - 1] != null) {
-            //There is no space left in the appointments array
-            this.grow();
-        }
-        int accountIndex = find(account);
-        if(accountIndex == NOT_FOUND) {
-            for(int i = 0; i < accounts.length; i++) {
-                if(accounts[i] == null) {
-                    accounts[i] = account;
-                    numAcct++;
-                    return true;
-                }
+        checkNameFits(account.holder.getFname());
+        checkNameFits(account.holder.getLname());
+        AccountKey key = AccountKey.of(account);
+        AccountKey rival = key.rival();
+        long mask = 1L << stripeIndex(key.hashCode());
+        if(rival != null) {
+            mask |= 1L << stripeIndex(rival.hashCode());
+        }
+        lockStripes(mask);
+        try {
+            if(rival != null && find(rival) != NOT_FOUND) {
+                return false;
             }
-        } else {
-            if(accounts[accountIndex].closed) {
-                accounts[accountIndex].closed = false;
-                accounts[accountIndex].balance = account.balance;
-                if(accounts[accountIndex].getType().equals("CollegeChecking")) {
-                    ((CollegeChecking)accounts[accountIndex]).setCampusCode(((CollegeChecking) account).getCampusCd());
-                }
-                if(accounts[accountIndex].getType().equals("Savings")) {
-                    ((Savings)accounts[accountIndex]).loyal = ((Savings) account).loyal;
-                }
-                if(accounts[accountIndex].getType().equals("MoneyMarket") && account.balance >= 2500) {
-                    ((MoneyMarket)accounts[accountIndex]).loyal = true;
-                }
-                return true;
+            int accountIndex = find(key);
+            if(accountIndex == NOT_FOUND) {
+                append(key, account, true);
             } else {
-                return false;
+                Account existing = accounts[accountIndex];
+                if(!existing.closed) {
+                    return false;
+                }
+                journal(TransactionJournal.OPEN, account, account.balance);
+                preserve(accountIndex);
+                existing.reopen(account);
+            }
+        } finally {
+            unlockStripes(mask);
+        }
+        snapshotIfDue();
+        return true;
+    }
+    
+    /**
+    Checks that a name can be journaled and written to a snapshot, before anything is recorded,
+    so that no later change to the account, such as a transfer, is refused for its length.
+    @param name the first or last name of a holder.
+    @throws IllegalArgumentException if it is longer than MAX_NAME_BYTES in UTF-8.
+    */
+    private static void checkNameFits(String name) {
+        if(name.length() > MAX_NAME_BYTES / MAX_UTF8_BYTES_PER_CHAR //shorter names always fit, without encoding them
+                && name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name is too long to store.");
+        }
+    }
+    
+    /**
+    Adds an account from a snapshot as it is, without journaling it.
+    @param account the account to add, not already in the database.
+    */
+    void restore(Account account) {
+        append(AccountKey.of(account), account, false);
+    }
+    
+    /**
+    Adds an account after the last one.
+    The opening is journaled and the slot reserved under the append lock, so slots follow journal order.
+    The wait for the record to be on disk happens after the lock is released, so concurrent opens are
+    written together. Only then is the account indexed and counted: the journal writes records in order,
+    so every slot below this one is on disk too. If the record cannot be written the slot is never
+    published, and the journal refuses every later change.
+    The caller holds the account's stripe, so no other teller looks for it in between.
+    If the holder already has an account, the new account takes that account's Profile, so a customer's
+    names and date of birth are held once however many accounts they open.
+    @param key the holder and type of the account.
+    @param account the account to add.
+    @param journaled whether to journal the opening first.
+    */
+    private void append(AccountKey key, Account account, boolean journaled) {
+        TransactionJournal log = journaled ? journal : null;
+        long sequence = 0;
+        int slot;
+        List<Account> held;
+        synchronized(appendLock) {
+            if(log != null) {
+                sequence = log.append(TransactionJournal.OPEN, account, account.balance);
+            }
+            if(reserved == accounts.length) {
+                //There is no space left in the accounts array
+                this.grow();
+            }
+            held = holders.computeIfAbsent(account.holder, holder -> new CopyOnWriteArrayList<Account>());
+            if(!held.isEmpty() && held.get(0).holder != account.holder) {
+                account.holder = held.get(0).holder;
+                key = new AccountKey(account.holder, key.getType()); //so the index does not keep the duplicate alive
+            }
+            slot = reserved++;
+            accounts[slot] = account;
+            held.add(account); //now, so a concurrent open by the same holder shares the Profile
+        }
+        if(log != null) {
+            try {
+                log.awaitDurable(sequence);
+            } catch(RuntimeException e) {
+                held.remove(account);
+                throw e;
+            }
+        }
+        index.put(key, slot);
+        synchronized(appendLock) {
+            if(numAcct <= slot) {
+                numAcct = slot + 1;
             }
         }
-        return false;
     }
     
     /**
@@ -134,19 +637,35 @@ public class AccountDatabase {
     @return true if account is closed, false otherwise.
     */
     public boolean close(Account account) {  
-        int indexOfAccount = find(account);
-        if(indexOfAccount != NOT_FOUND && !accounts[indexOfAccount].closed) {
-            accounts[indexOfAccount].closed = true;
-            accounts[indexOfAccount].balance = 0;
-            if( accounts[indexOfAccount].getType().equals("Savings") ||  accounts[indexOfAccount].getType().equals("MoneyMarket")) {                
-                ((Savings) accounts[indexOfAccount]).changeLoyalty(false);
-            }
-            if( accounts[indexOfAccount].getType().equals("MoneyMarket")) {                
-                ((MoneyMarket) accounts[indexOfAccount]).resetNumberOfWithdrawal();
+        return close(AccountKey.of(account));
+    }
+    
+    /**
+    Closes the account with the given holder and type.
+    @param key the holder and type of the account to close.
+    @return true if account is closed, false if it is not found or closed already.
+    */
+    @Override
+    public boolean close(AccountKey key) {  
+        int indexOfAccount = find(key);
+        if(indexOfAccount == NOT_FOUND) {
+            return false;
+        }
+        ReentrantLock stripe = stripeOf(key.hashCode());
+        stripe.lock();
+        try {
+            Account existing = accounts[indexOfAccount];
+            if(existing.closed) {
+                return false;
             }
-            return true;
+            journal(TransactionJournal.CLOSE, existing, 0);
+            preserve(indexOfAccount);
+            existing.close();
+        } finally {
+            stripe.unlock();
         }
-        return false;
+        snapshotIfDue();
+        return true;
     }
     
     /**
@@ -155,11 +674,37 @@ public class AccountDatabase {
     @param account the account to deposit into.
     */
     public void deposit(Account account) { 
-        int indexOfAccount = find(account);
-        double amount = account.balance;
-        if(indexOfAccount != NOT_FOUND) {
-            accounts[indexOfAccount].deposit(amount);
+        deposit(AccountKey.of(account), account.balance);
+    }
+    
+    /**
+    Deposits an amount into the account with the given holder and type.
+    @param key the holder and type of the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was deposited, false if the account is not found.
+    @throws IllegalArgumentException if the balance would go over Money.MAX_AMOUNT; nothing is changed.
+    */
+    @Override
+    public boolean deposit(AccountKey key, long amount) { 
+        int indexOfAccount = find(key);
+        if(indexOfAccount == NOT_FOUND) {
+            return false;
+        }
+        ReentrantLock stripe = stripeOf(key.hashCode());
+        stripe.lock();
+        try {
+            Account existing = accounts[indexOfAccount];
+            if(amount > Money.MAX_AMOUNT - existing.balance) {
+                throw new IllegalArgumentException("Deposit would take the balance over $" + Money.format(Money.MAX_AMOUNT) + ".");
+            }
+            journal(TransactionJournal.DEPOSIT, existing, amount);
+            preserve(indexOfAccount);
+            existing.deposit(amount);
+        } finally {
+            stripe.unlock();
         }
+        snapshotIfDue();
+        return true;
     }
     
     /**
@@ -169,73 +714,453 @@ public class AccountDatabase {
     @return true if account is withdrawn, false otherwise.
     */
     public boolean withdraw(Account account) { //return false if insufficient fund
-        int indexOfAccount = find(account);
-        double amount = account.balance;
-        if(indexOfAccount != NOT_FOUND) {
-            if(accounts[indexOfAccount].balance > amount) {
-                accounts[indexOfAccount].withdraw(amount);
-                return true;
+        return withdraw(AccountKey.of(account), account.balance);
+    }
+    
+    /**
+    Withdraws an amount from the account with the given holder and type.
+    @param key the holder and type of the account to withdraw from.
+    @param amount the amount in cents.
+    @return true if the amount was withdrawn, false if the account is not found or the funds are insufficient.
+    */
+    @Override
+    public boolean withdraw(AccountKey key, long amount) {
+        int indexOfAccount = find(key);
+        if(indexOfAccount == NOT_FOUND) {
+            return false;
+        }
+        ReentrantLock stripe = stripeOf(key.hashCode());
+        stripe.lock();
+        try {
+            Account existing = accounts[indexOfAccount];
+            if(existing.balance <= amount) {
+                return false;
             }
+            journal(TransactionJournal.WITHDRAW, existing, amount);
+            preserve(indexOfAccount);
+            existing.withdraw(amount);
+        } finally {
+            stripe.unlock();
         }
-        return false;
+        snapshotIfDue();
+        return true;
     } 
-   
+    
+    /**
+    Moves an amount from one account to another as a single change.
+    Both accounts are locked, lower stripe first, before either balance is touched, and the transfer
+    is journaled as one record, so it is either applied in full or not at all, even after a crash.
+    The withdrawal follows the same rules as withdraw, including the Money Market withdrawal count and loyalty.
+    @param from the account to withdraw from.
+    @param to the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was moved, false if an account is not found or closed, both are the same account,
+    the amount is not positive, the funds are insufficient or the target would go over Money.MAX_AMOUNT.
+    */
+    public boolean transfer(Account from, Account to, long amount) {
+        return transfer(AccountKey.of(from), AccountKey.of(to), amount);
+    }
+    
+    /**
+    Moves an amount between the accounts with the given holders and types as a single change.
+    @param from the holder and type of the account to withdraw from.
+    @param to the holder and type of the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was moved, false if an account is not found or closed, both are the same account,
+    the amount is not positive, the funds are insufficient or the target would go over Money.MAX_AMOUNT.
+    */
+    public boolean transfer(AccountKey from, AccountKey to, long amount) {
+        int fromIndex = find(from);
+        int toIndex = find(to);
+        if(fromIndex == NOT_FOUND || toIndex == NOT_FOUND || fromIndex == toIndex || amount <= 0) {
+            return false;
+        }
+        int fromStripe = stripeIndex(from.hashCode());
+        int toStripe = stripeIndex(to.hashCode());
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+        first.lock();
+        second.lock(); //the same lock again when both share a stripe, it is reentrant
+        try {
+            Account source = accounts[fromIndex];
+            Account target = accounts[toIndex];
+            if(source.closed || target.closed || source.balance <= amount || target.balance > Money.MAX_AMOUNT - amount) {
+                return false;
+            }
+            if(journal != null) {
+                journal.recordTransfer(source, target, amount);
+            }
+            preserve(fromIndex);
+            preserve(toIndex);
+            source.withdraw(amount);
+            target.deposit(amount);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+        snapshotIfDue();
+        return true;
+    }
+    
     /**
-    Prints all accounts in database.
+    Posts a batch of deposits and withdrawals, such as a payroll feed.
+    Entry i moves amounts[i] cents into or out of the account at position accountIds[i], as returned by findAcc,
+    following the same rules as deposit and withdraw. Entries for closed accounts are refused, as transfer refuses them.
+    Entries are grouped by account and applied in the order given.
+    Every stripe the batch touches is locked once, in order, for the whole batch. With a journal, each entry is
+    recorded first and the batch waits for the disk once, then the recorded entries are applied.
+    Nothing is allocated per entry beyond the journal records.
+    @param accountIds the account of each entry.
+    @param amounts the amount of each entry in cents.
+    @param operations POST_DEPOSIT or POST_WITHDRAW for each entry.
+    @param count the number of entries, at most the length of each array.
+    @param results filled with POSTED, POST_NOT_FOUND, POST_INSUFFICIENT_FUNDS, POST_INVALID or POST_CLOSED for each entry.
+    @return int the number of entries posted.
     */
-    public String print() { 
-        String output = "";
-        for(int i = 0; i < accounts.length; i++) {
-            if(accounts[i] == null) {
-                break;
+    public int post(int [] accountIds, long [] amounts, byte [] operations, int count, byte [] results) {
+        long [] byAccount = new long[count]; //account in the high half, entry in the low half, so sorting keeps entry order
+        int grouped = 0;
+        int accountCount = numAcct;
+        for(int i = 0; i < count; i++) {
+            if(accountIds[i] < 0 || accountIds[i] >= accountCount) {
+                results[i] = POST_NOT_FOUND;
+            } else if(amounts[i] <= 0 || (operations[i] != POST_DEPOSIT && operations[i] != POST_WITHDRAW)) {
+                results[i] = POST_INVALID;
+            } else {
+                byAccount[grouped++] = ((long) accountIds[i] << POSITION_BITS) | i;
             }
-            output = output + "+" + accounts[i].toString();
         }
-        return output;
+        Arrays.sort(byAccount, 0, grouped);
+        Account [] current = accounts;
+        long stripeMask = 0; //bit i set when the batch needs stripe i
+        for(int i = 0; i < grouped; i++) {
+            stripeMask |= 1L << stripeIndex(current[(int) (byAccount[i] >>> POSITION_BITS)].hashCode());
+        }
+        int decided = 0;
+        int posted = 0;
+        lockStripes(stripeMask);
+        try {
+            long lastRecord = 0;
+            RuntimeException failure = null;
+            try {
+                while(decided < grouped) {
+                    int id = (int) (byAccount[decided] >>> POSITION_BITS);
+                    Account account = current[id];
+                    if(account.closed) { //stays closed while its stripe is held
+                        while(decided < grouped && (int) (byAccount[decided] >>> POSITION_BITS) == id) {
+                            results[(int) (byAccount[decided] & POSITION_MASK)] = POST_CLOSED;
+                            decided++;
+                        }
+                        continue;
+                    }
+                    long balance = account.balance; //as it will be when each entry of this account is applied
+                    while(decided < grouped && (int) (byAccount[decided] >>> POSITION_BITS) == id) {
+                        int entry = (int) (byAccount[decided] & POSITION_MASK);
+                        long amount = amounts[entry];
+                        byte operation;
+                        if(operations[entry] == POST_DEPOSIT && amount > Money.MAX_AMOUNT - balance) {
+                            results[entry] = POST_INVALID;
+                            decided++;
+                            continue;
+                        } else if(operations[entry] == POST_DEPOSIT) {
+                            operation = TransactionJournal.DEPOSIT;
+                        } else if(balance > amount) {
+                            operation = TransactionJournal.WITHDRAW;
+                        } else {
+                            results[entry] = POST_INSUFFICIENT_FUNDS;
+                            decided++;
+                            continue;
+                        }
+                        if(journal != null) {
+                            lastRecord = journal.append(operation, account, amount);
+                        }
+                        balance = operation == TransactionJournal.DEPOSIT ? balance + amount : balance - amount;
+                        results[entry] = POSTED;
+                        decided++;
+                    }
+                }
+            } catch(RuntimeException e) {
+                failure = e; //entries already recorded are still applied below, the rest are not
+            }
+            if(lastRecord > 0) {
+                journal.awaitDurable(lastRecord);
+            }
+            for(int i = 0; i < decided; i++) {
+                int entry = (int) (byAccount[i] & POSITION_MASK);
+                if(results[entry] == POSTED) {
+                    int id = (int) (byAccount[i] >>> POSITION_BITS);
+                    Account account = current[id];
+                    preserve(id);
+                    if(operations[entry] == POST_DEPOSIT) {
+                        account.deposit(amounts[entry]);
+                    } else {
+                        account.withdraw(amounts[entry]);
+                    }
+                    posted++;
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+        } finally {
+            unlockStripes(stripeMask);
+        }
+        if(posted > 0) {
+            snapshotIfDue();
+        }
+        return posted;
+    }
+   
+    /**
+    Prints all accounts in database, one line per account.
+    Lines are written to the output as they are produced.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void print(Appendable out) throws IOException { 
+        int count = numAcct;
+        Account [] current = accounts;
+        for(int i = 0; i < count; i++) {
+            out.append(current[i].toString()).append(LINE_END);
+        }
+    }
+    
+    /**
+    Prints all accounts by type, one line per account.
+    Accounts of the same type keep the order they were opened in.
+    The database order itself is left untouched.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printByAccountType(Appendable out) throws IOException { 
+        int count = numAcct;
+        Account [] sorted = sortedByType;
+        if(sorted == null || sorted.length != count) {
+            //Stable sort of a copy, reused until another account is opened; accounts are never removed,
+            //so a copy as long as numAcct holds every account, even if a slower report stored an older one
+            sorted = Arrays.copyOf(accounts, count);
+            Arrays.sort(sorted, BY_TYPE);
+            sortedByType = sorted;
+        }
+        for(Account account : sorted) {
+            out.append(account.toString()).append(LINE_END);
+        }
+    }
+    
+    /**
+    Prints all accounts with their monthly interest and fees, one line per account.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printFeeAndInterest(Appendable out) throws IOException {
+        int count = numAcct;
+        Account [] current = accounts;
+        StringBuilder line = new StringBuilder();
+        for(int i = 0; i < count; i++) {
+            line.setLength(0);
+            line.append(current[i].toString()).append("::fee $");
+            Money.append(line, current[i].fee()).append("::monthly interest $");
+            Money.append(line, current[i].monthlyInterest()).append(LINE_END);
+            out.append(line);
+        }
+    }
+    
+    /**
+    Posts this month's fees and interest to the accounts on the calling thread.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances() {
+        return updateBalances(1);
     }
     
     /**
-    Prints all accounts by type.
+    Posts this month's fees and interest to the accounts using several threads.
+    Balances and the summary are identical to the single threaded run.
+    @param parallelism the number of threads to use.
+    @return MonthEndSummary the totals of the accounts posted.
     */
-    public String printByAccountType() { 
-        //Sorting account types by alphabetical order
-        for(int i = 0; i < numAcct - 1; i++) {
-            int minIndex = i;
-            for(int j = i + 1; j < numAcct; j++) {
-                if(accounts[minIndex].getType().compareToIgnoreCase(accounts[j].getType()) > 0) {
-                    minIndex = j;
+    public MonthEndSummary updateBalances(int parallelism) {
+        return updateBalances(Date.today().toPeriod(), parallelism);
+    }
+    
+    /**
+    Posts the fees and interest of a month-end period to every account not yet posted for it.
+    Running it again for the same period changes nothing.
+    @param period the period to post, as yyyymm.
+    @param parallelism the number of threads to use.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    @Override
+    public MonthEndSummary updateBalances(int period, int parallelism) {
+        return updateBalances(period, 0, Integer.MAX_VALUE, parallelism);
+    }
+    
+    /**
+    Posts the fees and interest of a month-end period to a range of accounts.
+    Closed accounts and accounts already posted for the period are skipped, so a run cut short
+    by a crash is finished by running the period again, and a large book can be posted in chunks.
+    Every stripe is held for the whole run, so tellers wait until it is done.
+    @param period the period to post, as yyyymm.
+    @param from the first index to post.
+    @param to one past the last index to post, cut to the number of accounts.
+    @param parallelism the number of threads to use.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances(int period, int from, int to, int parallelism) {
+        MonthEndSummary summary;
+        lockAll();
+        try {
+            to = Math.min(to, numAcct);
+            from = Math.min(Math.max(from, 0), to);
+            if(journal != null && isDue(period, from, to)) {
+                journal.recordMonthEnd(period, from, to);
+            }
+            if(parallelism <= 1 || to - from <= MONTH_END_CHUNK) {
+                summary = updateRange(period, from, to);
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    summary = pool.invoke(new MonthEndTask(period, from, to));
+                } finally {
+                    pool.shutdown();
                 }
             }
-            Account temp = accounts[i];
-            accounts[i] = accounts[minIndex];
-            accounts[minIndex] = temp;
+        } finally {
+            unlockAll();
+        }
+        return summary;
+    }
+    
+    /**
+    Tells whether any account in a range is still to be posted for a period.
+    @param period the period to post, as yyyymm.
+    @param from the first index to check.
+    @param to one past the last index to check.
+    @return true if an open account in the range was not posted for the period, false otherwise.
+    */
+    private boolean isDue(int period, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(!accounts[i].closed && accounts[i].accruedPeriod < period) {
+                return true;
+            }
         }
-        return print();
+        return false;
     }
     
     /**
-    Prints all accounts with their monthly interest and fees
+    Posts a range of accounts, splitting it the same way MonthEndTask does
+    so that the totals are added up in the same order.
+    @param period the period to post, as yyyymm.
+    @param from the first index to post.
+    @param to one past the last index to post.
+    @return MonthEndSummary the totals of the range.
     */
-    public String printFeeAndInterest() {
-        String output = "";
-        DecimalFormat formatObj = new DecimalFormat("###,##0.00");
-        formatObj.setGroupingUsed(true);
-        formatObj.setGroupingSize(GROUPING_SIZE);
-        for(int i = 0; i < accounts.length; i++) {
-            if(accounts[i] == null) {
-                break;
+    private MonthEndSummary updateRange(int period, int from, int to) {
+        if(to - from <= MONTH_END_CHUNK) {
+            return updateChunk(period, from, to);
+        }
+        int middle = (from + to) >>> 1;
+        return updateRange(period, from, middle).combine(updateRange(period, middle, to));
+    }
+    
+    /**
+    Posts a chunk of accounts one after the other, moving each one's watermark to the period.
+    @param period the period to post, as yyyymm.
+    @param from the first index to post.
+    @param to one past the last index to post.
+    @return MonthEndSummary the totals of the accounts posted in the chunk.
+    */
+    private MonthEndSummary updateChunk(int period, int from, int to) {
+        int posted = 0;
+        long totalBalance = 0;
+        long netChange = 0;
+        for(int i = from; i < to; i++) {
+            Account account = accounts[i];
+            if(account.closed || account.accruedPeriod >= period) {
+                continue;
             }
-            output = output + "+" + accounts[i].toString() + "::fee $" + formatObj.format(accounts[i].fee()) + "::monthly interest $" + formatObj.format(accounts[i].monthlyInterest());
+            long previousBalance = account.balance;
+            preserve(i);
+            account.updateBalance();
+            account.accruedPeriod = period;
+            posted++;
+            totalBalance += account.balance;
+            netChange += account.balance - previousBalance;
         }
-        return output;
+        return new MonthEndSummary(posted, totalBalance, netChange);
     }
     
     /**
-    Updates the accounts' balance in database.
+    Month-end work over a range of accounts, split in halves until the chunks are small.
     */
-    public void updateBalances() {
-        for(int i = 0; i < numAcct; i++) {
-            accounts[i].updateBalance();
+    private class MonthEndTask extends RecursiveTask<MonthEndSummary> {
+        private static final long serialVersionUID = 1L;
+        private final int period;
+        private final int from;
+        private final int to;
+        
+        /**
+        Creates the task for a range of accounts.
+        @param period the period to post, as yyyymm.
+        @param from the first index to post.
+        @param to one past the last index to post.
+        */
+        MonthEndTask(int period, int from, int to) {
+            this.period = period;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+        Updates the range, forking the halves when it is larger than a chunk.
+        @return MonthEndSummary the totals of the range.
+        */
+        @Override
+        protected MonthEndSummary compute() {
+            if(to - from <= MONTH_END_CHUNK) {
+                return updateChunk(period, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            MonthEndTask left = new MonthEndTask(period, from, middle);
+            MonthEndTask right = new MonthEndTask(period, middle, to);
+            invokeAll(left, right);
+            return left.join().combine(right.join());
+        }
+    }
+    
+    /**
+    An image being captured: which accounts are copied so far, guarded by each account's stripe.
+    */
+    private static final class Capture {
+        private final AccountSnapshot image;
+        private final boolean [] copied;
+        private final Account [] accounts; //the accounts at the point in time; their positions never change
+        
+        /**
+        Creates the capture of an image.
+        @param image the image to fill, as long as the number of accounts at the point in time.
+        @param copied one flag per account, all false.
+        @param accounts the account array at the point in time.
+        */
+        Capture(AccountSnapshot image, boolean [] copied, Account [] accounts) {
+            this.image = image;
+            this.copied = copied;
+            this.accounts = accounts;
+        }
+        
+        /**
+        Copies an account into the image unless it is already there or was opened after the point in time.
+        Called with the account's stripe held.
+        @param index the position of the account.
+        */
+        void copy(int index) {
+            if(index < copied.length && !copied[index]) {
+                image.set(index, accounts[index]);
+                copied[index] = true;
+            }
         }
     }
-}
\ No newline at end of file
+}
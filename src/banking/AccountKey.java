@@ -0,0 +1,100 @@
+package banking;
+
+/**
+Names an account by its holder and type, the pair that identifies it in an AccountDatabase.
+Used to look accounts up and change them without building a temporary Account to carry the holder.
+Immutable; the hash code is computed once.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public final class AccountKey {
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final Profile holder;
+    private final AccountType type;
+    private final int hash;
+
+    /**
+    Creates a key.
+    @param holder the Profile of the account holder.
+    @param type the account type.
+    */
+    public AccountKey(Profile holder, AccountType type) {
+        this.holder = holder;
+        this.type = type;
+        this.hash = HASH_MULTIPLIER * holder.hashCode() + type.getName().hashCode(); //same as Account.hashCode
+    }
+
+    /**
+    Returns the key of an account.
+    @param account the account.
+    @return AccountKey its holder and type.
+    */
+    public static AccountKey of(Account account) {
+        return new AccountKey(account.holder, account.getAccountType());
+    }
+
+    /**
+    Returns the holder of the account.
+    @return Profile the holder.
+    */
+    public Profile getHolder() {
+        return holder;
+    }
+
+    /**
+    Returns the type of the account.
+    @return AccountType the type.
+    */
+    public AccountType getType() {
+        return type;
+    }
+
+    /**
+    Returns the key of the account that excludes this one: a holder can own a Checking or
+    a College Checking account, open or closed, but not both.
+    @return AccountKey the holder's other checking account, null for types that exclude none.
+    */
+    AccountKey rival() {
+        switch(type) {
+        case CHECKING:
+            return new AccountKey(holder, AccountType.COLLEGE_CHECKING);
+        case COLLEGE_CHECKING:
+            return new AccountKey(holder, AccountType.CHECKING);
+        default:
+            return null;
+        }
+    }
+
+    /**
+    Determines whether two keys name the same account.
+    @param obj the object to compare with.
+    @return true if holder and type are equal, false otherwise.
+    */
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof AccountKey) {
+            AccountKey key = (AccountKey) obj;
+            return hash == key.hash && type == key.type && holder.equals(key.holder);
+        }
+        return false;
+    }
+
+    /**
+    Returns the hash code computed when the key was created.
+    It equals the hash code of the account the key names.
+    @return int the hash code.
+    */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+    Returns a string representation of the key.
+    @return String the holder and the type.
+    */
+    @Override
+    public String toString() {
+        return holder + "::" + type.getName();
+    }
+}
@@ -0,0 +1,273 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+Point-in-time image of every account in an AccountDatabase, and its compact binary file format.
+The image is captured by copying each account's fields into flat arrays, in any order,
+so it can be filled and written on another thread while tellers keep changing the database.
+It remembers the journal sequence it was taken at; recovery loads it and replays only later records.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountSnapshot {
+    private static final int MAGIC = 0x534E4150; //"SNAP"
+    private static final int VERSION = 2; //2 added the month-end period of each account
+    private static final int HEADER_SIZE = 20; //magic, version, sequence, count
+    private static final int FIXED_ENTRY_SIZE = 28; //type, flags, campus code, withdrawals, balance, month-end period, date of birth, two name lengths
+    private static final int NO_CAMPUS_CODE = -1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private long sequence;
+    private final int count;
+    private final Profile [] holders;
+    private final byte [] types;
+    private final byte [] flags;
+    private final byte [] campusCodes;
+    private final int [] withdrawals;
+    private final long [] balances;
+    private final int [] accruedPeriods;
+
+    /**
+    Creates an image to be filled one account at a time.
+    @param sequence the journal sequence number of the last change the image includes.
+    @param capacity the number of accounts the image holds.
+    */
+    AccountSnapshot(long sequence, int capacity) {
+        this.sequence = sequence;
+        this.count = capacity;
+        holders = new Profile[capacity];
+        types = new byte[capacity];
+        flags = new byte[capacity];
+        campusCodes = new byte[capacity];
+        withdrawals = new int[capacity];
+        balances = new long[capacity];
+        accruedPeriods = new int[capacity];
+    }
+
+    /**
+    Copies the state of one account into the image.
+    @param index the position of the account, in the order of the database.
+    @param account the account to copy.
+    */
+    void set(int index, Account account) {
+        byte accountFlags = account.closed ? ColumnarAccountDatabase.CLOSED : 0;
+        int campusCode = NO_CAMPUS_CODE;
+        int numberOfWithdrawal = 0;
+        if(account instanceof Savings && ((Savings) account).loyal) {
+            accountFlags |= ColumnarAccountDatabase.LOYAL;
+        }
+        if(account instanceof CollegeChecking) {
+            campusCode = ((CollegeChecking) account).getCampusCd();
+        }
+        if(account instanceof MoneyMarket) {
+            numberOfWithdrawal = (int) ((MoneyMarket) account).getNumberOfWithdrawal();
+        }
+        holders[index] = account.holder;
+        types[index] = account.getAccountType().tag();
+        flags[index] = accountFlags;
+        campusCodes[index] = (byte) campusCode;
+        withdrawals[index] = numberOfWithdrawal;
+        balances[index] = account.balance;
+        accruedPeriods[index] = account.accruedPeriod;
+    }
+
+    /**
+    Tags the image with the journal sequence it is taken at, once that is fixed.
+    @param sequence the journal sequence number of the last change the image includes.
+    */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+    Returns the journal sequence number of the last change the image includes.
+    @return long the sequence number.
+    */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+    Returns the number of accounts in the image.
+    @return int the number of accounts.
+    */
+    public int size() {
+        return count;
+    }
+
+    /**
+    Returns the holder of one account in the image.
+    @param index the position of the account, in the order of the database.
+    @return Profile the holder.
+    */
+    Profile holderAt(int index) {
+        return holders[index];
+    }
+
+    /**
+    Returns the type of one account in the image.
+    @param index the position of the account, in the order of the database.
+    @return AccountType the type.
+    */
+    AccountType typeAt(int index) {
+        return AccountType.ofTag(types[index]);
+    }
+
+    /**
+    Tells whether one account in the image is closed.
+    @param index the position of the account, in the order of the database.
+    @return true if the account is closed, false otherwise.
+    */
+    boolean isClosedAt(int index) {
+        return (flags[index] & ColumnarAccountDatabase.CLOSED) != 0;
+    }
+
+    /**
+    Returns the balance of one account in the image.
+    @param index the position of the account, in the order of the database.
+    @return long the balance in cents.
+    */
+    long balanceAt(int index) {
+        return balances[index];
+    }
+
+    /**
+    Returns the monthly fee of one account in the image, as Account.fee would.
+    @param index the position of the account, in the order of the database.
+    @return long the monthly fee in cents.
+    */
+    long feeAt(int index) {
+        return ColumnarAccountDatabase.feeOf(AccountType.ofTag(types[index]), balances[index], withdrawals[index]);
+    }
+
+    /**
+    Returns the monthly interest of one account in the image, as Account.monthlyInterest would.
+    @param index the position of the account, in the order of the database.
+    @return long the monthly interest in cents.
+    */
+    long interestAt(int index) {
+        return ColumnarAccountDatabase.interestOf(AccountType.ofTag(types[index]), balances[index], (flags[index] & ColumnarAccountDatabase.LOYAL) != 0);
+    }
+
+    /**
+    Builds an Account object from the image of one account.
+    The object is a copy: changing it changes neither the image nor the database.
+    @param index the position of the account, in the order of the database.
+    @return Account the account as an object of its class.
+    */
+    public Account accountAt(int index) {
+        Account account = ColumnarAccountDatabase.view(holders[index], AccountType.ofTag(types[index]), flags[index], balances[index], withdrawals[index], campusCodes[index]);
+        account.accruedPeriod = accruedPeriods[index];
+        return account;
+    }
+
+    /**
+    Adds every account in the image to an empty database.
+    @param database the database to fill.
+    */
+    public void restore(AccountDatabase database) {
+        for(int i = 0; i < count; i++) {
+            database.restore(accountAt(i));
+        }
+    }
+
+    /**
+    Writes the image to a file, replacing it atomically so a crash leaves either the old or the new snapshot.
+    @param file the path of the snapshot file.
+    @throws IOException if the file cannot be written.
+    */
+    public void write(Path file) throws IOException {
+        byte [][] names = new byte[count * 2][];
+        int size = HEADER_SIZE + Integer.BYTES;
+        for(int i = 0; i < count; i++) {
+            names[2 * i] = holders[i].getFname().getBytes(StandardCharsets.UTF_8);
+            names[2 * i + 1] = holders[i].getLname().getBytes(StandardCharsets.UTF_8);
+            size += FIXED_ENTRY_SIZE + names[2 * i].length + names[2 * i + 1].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(count);
+        for(int i = 0; i < count; i++) {
+            buffer.put(types[i]).put(flags[i]).put(campusCodes[i]).put((byte) 0);
+            buffer.putInt(withdrawals[i]);
+            buffer.putLong(balances[i]);
+            buffer.putInt(accruedPeriods[i]);
+            buffer.putInt(holders[i].getPackedDob());
+            buffer.putShort((short) names[2 * i].length).put(names[2 * i]);
+            buffer.putShort((short) names[2 * i + 1].length).put(names[2 * i + 1]);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+    Reads a snapshot file.
+    @param file the path of the snapshot file.
+    @return AccountSnapshot the image, or null if there is no snapshot yet.
+    @throws IOException if the file cannot be read or is damaged.
+    */
+    public static AccountSnapshot read(Path file) throws IOException {
+        byte [] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch(NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if(bytes.length < HEADER_SIZE + Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException(file + " is not a snapshot of version " + VERSION + ".");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - Integer.BYTES);
+        if((int) checksum.getValue() != buffer.getInt(bytes.length - Integer.BYTES)) {
+            throw new IOException(file + " is damaged.");
+        }
+        long sequence = buffer.getLong();
+        int count = buffer.getInt();
+        AccountSnapshot snapshot = new AccountSnapshot(sequence, count);
+        for(int i = 0; i < count; i++) {
+            snapshot.types[i] = buffer.get();
+            snapshot.flags[i] = buffer.get();
+            snapshot.campusCodes[i] = buffer.get();
+            buffer.get();
+            snapshot.withdrawals[i] = buffer.getInt();
+            snapshot.balances[i] = buffer.getLong();
+            snapshot.accruedPeriods[i] = buffer.getInt();
+            int dob = buffer.getInt();
+            String fname = getName(buffer);
+            String lname = getName(buffer);
+            snapshot.holders[i] = new Profile(fname, lname, dob);
+        }
+        return snapshot;
+    }
+
+    /**
+    Reads a length-prefixed UTF-8 name.
+    @param buffer the snapshot contents, positioned at the name.
+    @return String the name.
+    */
+    private static String getName(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort()); //unsigned, so names up to AccountDatabase.MAX_NAME_BYTES read back
+        String name = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return name;
+    }
+}
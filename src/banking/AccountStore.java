@@ -0,0 +1,103 @@
+package banking;
+
+import java.io.IOException;
+
+/**
+The operations a TransactionService needs from the accounts it works on, whatever holds them:
+AccountDatabase keeps one object per account, ColumnarAccountDatabase keeps primitive columns
+and MappedAccountDatabase keeps records in a memory-mapped file.
+Every store applies the same rules, so a command feed gets the same replies from each.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public interface AccountStore {
+
+    /**
+    Gets the number of accounts in the store.
+    @return int the number of accounts, open or closed.
+    */
+    int sizeOfDatabase();
+
+    /**
+    Attempts to find the account with the given holder and type.
+    @param key the holder and type of the account.
+    @return int -1 if not found, the position of the account otherwise.
+    */
+    int findAcc(AccountKey key);
+
+    /**
+    Checks whether the account with the given holder and type is closed.
+    @param key the holder and type of the account.
+    @return true if account is closed, false otherwise.
+    */
+    boolean isClosed(AccountKey key);
+
+    /**
+    Returns the Profile the store holds for a person, so their accounts can share it.
+    @param holder a Profile of the holder.
+    @return Profile the stored Profile, or holder itself if the store keeps none to share.
+    */
+    Profile customer(Profile holder);
+
+    /**
+    Opens an account, or reopens it if it is closed.
+    A holder can own a Checking or a College Checking account, open or closed, but not both.
+    @param account the Account to open.
+    @return true if account is opened, false if it is open already or the holder has the other checking account.
+    @throws IllegalArgumentException if the account cannot be stored, such as for a name too long.
+    @throws java.io.UncheckedIOException if the change cannot be written.
+    */
+    boolean open(Account account);
+
+    /**
+    Closes the account with the given holder and type.
+    @param key the holder and type of the account to close.
+    @return true if account is closed, false if it is not found or closed already.
+    */
+    boolean close(AccountKey key);
+
+    /**
+    Deposits an amount into the account with the given holder and type.
+    @param key the holder and type of the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was deposited, false if the account is not found.
+    @throws IllegalArgumentException if the balance would go over Money.MAX_AMOUNT; nothing is changed.
+    */
+    boolean deposit(AccountKey key, long amount);
+
+    /**
+    Withdraws an amount from the account with the given holder and type.
+    @param key the holder and type of the account to withdraw from.
+    @param amount the amount in cents.
+    @return true if the amount was withdrawn, false if the account is not found or the funds are insufficient.
+    */
+    boolean withdraw(AccountKey key, long amount);
+
+    /**
+    Prints all accounts, one line per account, in the order they were opened.
+    @param out where to write the accounts.
+    @throws IOException if writing to the output fails.
+    */
+    void print(Appendable out) throws IOException;
+
+    /**
+    Prints all accounts by type, one line per account.
+    @param out where to write the accounts.
+    @throws IOException if writing to the output fails.
+    */
+    void printByAccountType(Appendable out) throws IOException;
+
+    /**
+    Prints all accounts with their monthly fee and interest, one line per account.
+    @param out where to write the accounts.
+    @throws IOException if writing to the output fails.
+    */
+    void printFeeAndInterest(Appendable out) throws IOException;
+
+    /**
+    Posts the fees and interest of a month-end period to every open account not yet posted for it.
+    @param period the period to post, as yyyymm.
+    @param parallelism the number of threads the store may use, 1 for the calling thread only.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    MonthEndSummary updateBalances(int period, int parallelism);
+}
@@ -0,0 +1,235 @@
+package banking;
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.List;
+
+import javafx.collections.ObservableListBase;
+
+/**
+Read-only list of accounts backing the account TableView.
+It wraps a point-in-time AccountSnapshot, so the table never reads the live database,
+and builds an Account object only when a row is asked for. The TableView only asks
+for the rows on screen, so showing a large book costs a copy of the fields, not a formatted line per account.
+Sorting reorders an array of image positions by the image's columns, leaving the image in database order
+and building no rows.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountTableModel extends ObservableListBase<Account> {
+
+    /**
+    The columns the rows can be sorted by.
+    */
+    public enum Column {
+        TYPE, HOLDER, BALANCE, FEE, INTEREST, STATUS
+    }
+
+    private static final Comparator<Profile> BY_HOLDER = Comparator.comparing(Profile::getLname, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Profile::getFname, String.CASE_INSENSITIVE_ORDER).thenComparing(Profile::getDob);
+    private static final int INSERTION_SORT_LIMIT = 16; //shorter runs are sorted by insertion
+
+    private AccountSnapshot image = new AccountSnapshot(0, 0);
+    private Account [] rows = new Account[0]; //rows built so far, by position in the image
+    private int [] order; //image positions in display order, null for database order
+    private Column [] sortColumns = new Column[0];
+    private boolean [] descending = new boolean[0];
+
+    /**
+    Compares two accounts of the image by their positions.
+    */
+    private interface PositionComparator {
+        /**
+        Compares two accounts of the image.
+        @param first the position of one account.
+        @param second the position of the other.
+        @return int negative, zero or positive as the first sorts before, with or after the second.
+        */
+        int compare(int first, int second);
+    }
+
+    /**
+    Shows a new image of the database, keeping the current sort order.
+    Must be called on the JavaFX Application Thread.
+    @param image the accounts to show.
+    */
+    public void setImage(AccountSnapshot image) {
+        List<Account> removed = frozenView();
+        this.image = image;
+        this.rows = new Account[image.size()];
+        this.order = sortedOrder();
+        fireReplaced(removed);
+    }
+
+    /**
+    Sorts the rows by some columns, keeping database order among equal rows.
+    Must be called on the JavaFX Application Thread.
+    @param columns the columns to sort by, most significant first; empty for database order.
+    @param descending whether each column sorts in descending order.
+    */
+    public void sort(Column [] columns, boolean [] descending) {
+        List<Account> removed = frozenView();
+        this.sortColumns = columns.clone();
+        this.descending = descending.clone();
+        this.order = sortedOrder();
+        fireReplaced(removed);
+    }
+
+    /**
+    Computes the display order of the image under the sort columns.
+    @return int[] the image positions in display order, or null for database order.
+    */
+    private int [] sortedOrder() {
+        if(sortColumns.length == 0) {
+            return null;
+        }
+        PositionComparator [] keys = new PositionComparator[sortColumns.length];
+        for(int k = 0; k < keys.length; k++) {
+            PositionComparator key = comparatorOf(sortColumns[k]);
+            keys[k] = descending[k] ? (first, second) -> key.compare(second, first) : key;
+        }
+        PositionComparator byColumns = (first, second) -> {
+            for(PositionComparator key : keys) {
+                int result = key.compare(first, second);
+                if(result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+        int [] positions = new int[image.size()];
+        for(int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        mergeSort(positions, new int[positions.length], 0, positions.length, byColumns);
+        return positions;
+    }
+
+    /**
+    Builds the ascending order of one column, read from the image.
+    Fee and interest are computed once per account rather than per comparison.
+    @param column the column.
+    @return PositionComparator the order of the image positions by that column.
+    */
+    private PositionComparator comparatorOf(Column column) {
+        AccountSnapshot current = image;
+        switch(column) {
+        case TYPE:
+            return (first, second) -> current.typeAt(first).compareTo(current.typeAt(second)); //declared in type name order
+        case HOLDER:
+            return (first, second) -> BY_HOLDER.compare(current.holderAt(first), current.holderAt(second));
+        case BALANCE:
+            return (first, second) -> Long.compare(current.balanceAt(first), current.balanceAt(second));
+        case STATUS:
+            return (first, second) -> Boolean.compare(current.isClosedAt(first), current.isClosedAt(second));
+        default:
+            long [] amounts = new long[current.size()];
+            for(int i = 0; i < amounts.length; i++) {
+                amounts[i] = column == Column.FEE ? current.feeAt(i) : current.interestAt(i);
+            }
+            return (first, second) -> Long.compare(amounts[first], amounts[second]);
+        }
+    }
+
+    /**
+    Sorts a range of positions, keeping the order of equal ones.
+    @param positions the positions to sort.
+    @param buffer scratch space at least as long as positions.
+    @param from the first index of the range.
+    @param to the index after the last one of the range.
+    @param comparator the order.
+    */
+    private static void mergeSort(int [] positions, int [] buffer, int from, int to, PositionComparator comparator) {
+        if(to - from <= INSERTION_SORT_LIMIT) {
+            for(int i = from + 1; i < to; i++) {
+                int position = positions[i];
+                int j = i - 1;
+                while(j >= from && comparator.compare(positions[j], position) > 0) {
+                    positions[j + 1] = positions[j];
+                    j--;
+                }
+                positions[j + 1] = position;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(positions, buffer, from, middle, comparator);
+        mergeSort(positions, buffer, middle, to, comparator);
+        if(comparator.compare(positions[middle - 1], positions[middle]) <= 0) {
+            return; //already in order
+        }
+        System.arraycopy(positions, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for(int i = from; i < to; i++) {
+            if(right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                positions[i] = buffer[left++];
+            } else {
+                positions[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+    Returns the account at a position of the image, building it on first use.
+    @param position the position in the image.
+    @return Account the account.
+    */
+    private Account row(int position) {
+        Account account = rows[position];
+        if(account == null) {
+            account = image.accountAt(position);
+            rows[position] = account;
+        }
+        return account;
+    }
+
+    /**
+    Returns a list of the current rows that later changes to this model do not affect, for change events.
+    @return List the current rows, built lazily.
+    */
+    private List<Account> frozenView() {
+        AccountSnapshot oldImage = image;
+        Account [] oldRows = rows;
+        int [] oldOrder = order;
+        return new AbstractList<Account>() {
+            @Override
+            public Account get(int index) {
+                int position = oldOrder == null ? index : oldOrder[index];
+                if(oldRows[position] == null) {
+                    oldRows[position] = oldImage.accountAt(position);
+                }
+                return oldRows[position];
+            }
+
+            @Override
+            public int size() {
+                return oldImage.size();
+            }
+        };
+    }
+
+    /**
+    Tells the listeners that every row was replaced.
+    @param removed the rows before the change.
+    */
+    private void fireReplaced(List<Account> removed) {
+        beginChange();
+        if(!removed.isEmpty()) {
+            nextRemove(0, removed);
+        }
+        if(size() > 0) {
+            nextAdd(0, size());
+        }
+        endChange();
+    }
+
+    @Override
+    public Account get(int index) {
+        return row(order == null ? index : order[index]);
+    }
+
+    @Override
+    public int size() {
+        return image.size();
+    }
+}
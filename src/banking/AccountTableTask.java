@@ -0,0 +1,60 @@
+package banking;
+
+import java.util.concurrent.CancellationException;
+
+import javafx.concurrent.Task;
+
+/**
+Takes an image of the database for the account table off the JavaFX Application Thread,
+running the month-end update first if asked.
+Progress is the share of accounts copied so far; it is indeterminate while the month-end update runs.
+Cancelling stops the copy at the next batch. A month-end update, once started, is always completed,
+so the task must be cancelled without interrupting it: an interrupt would close the journal mid-write.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountTableTask extends Task<AccountSnapshot> {
+    private final TransactionService service;
+    private final AccountDatabase database;
+    private final boolean updateBalances;
+
+    /**
+    Creates a task for one refresh of the table.
+    @param service the service that runs the month-end update.
+    @param database the database of the service, whose image is shown.
+    @param updateBalances whether to run the month-end update before taking the image.
+    */
+    public AccountTableTask(TransactionService service, AccountDatabase database, boolean updateBalances) {
+        this.service = service;
+        this.database = database;
+        this.updateBalances = updateBalances;
+    }
+
+    /**
+    Runs the month-end update if asked and copies every account.
+    @return AccountSnapshot the image for the table, or null if the database is empty.
+    @throws IllegalStateException if the month-end update could not be journaled.
+    */
+    @Override
+    protected AccountSnapshot call() {
+        if(database.sizeOfDatabase() == 0) {
+            return null;
+        }
+        if(updateBalances) {
+            updateMessage("Updating balances...");
+            updateProgress(-1, 1);
+            TransactionResult updated = service.updateBalances();
+            if(!updated.isSuccess()) {
+                throw new IllegalStateException(updated.getMessage());
+            }
+        }
+        updateMessage("Loading accounts...");
+        AccountSnapshot image = database.image(copied -> {
+            if(isCancelled()) {
+                throw new CancellationException();
+            }
+            updateProgress(copied, 1);
+        });
+        updateProgress(1, 1);
+        return image;
+    }
+}
@@ -0,0 +1,50 @@
+package banking;
+
+/**
+The kinds of account the bank offers, in the order accounts are printed by type.
+The ordinal of each type is its type tag in the columnar, mapped and snapshot formats.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public enum AccountType {
+    CHECKING("Checking"),
+    COLLEGE_CHECKING("CollegeChecking"),
+    MONEY_MARKET("MoneyMarket"),
+    SAVINGS("Savings");
+
+    private static final AccountType [] BY_TAG = values();
+
+    private final String name;
+
+    /**
+    Creates an account type.
+    @param name the name returned by Account.getType for accounts of this type.
+    */
+    AccountType(String name) {
+        this.name = name;
+    }
+
+    /**
+    Returns the name of this type, as returned by Account.getType.
+    @return String the name, such as "CollegeChecking".
+    */
+    public String getName() {
+        return name;
+    }
+
+    /**
+    Returns the type with the given type tag.
+    @param tag the tag, as stored by ColumnarAccountDatabase.
+    @return AccountType the type.
+    */
+    static AccountType ofTag(int tag) {
+        return BY_TAG[tag];
+    }
+
+    /**
+    Returns the type tag of this type.
+    @return byte the tag, as stored by ColumnarAccountDatabase.
+    */
+    byte tag() {
+        return (byte) ordinal();
+    }
+}
@@ -1,9 +1,26 @@
 package banking;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.RadioButton;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
@@ -16,24 +33,60 @@ Handles all exceptions and invalid data.
 public class BankTellerController {     //this class is similar to bankteller class (handles commands).
 //The GUI replaces the BankTeller class in project 2
 //fx:controller="banking.BankTellerController" --> "controller is defined here, this is your controller"
+//The rules themselves live in TransactionService; this class only reads the screen and shows the replies.
     private AccountDatabase database;
-    private static final int ACCOUNT_NOT_FOUND = -1;
+    private TransactionService service;
+    private ExecutorService worker; //runs every database call, one at a time, off the JavaFX Application Thread
+    private AccountTableTask runningListing;
+    private final AccountTableModel accountRows = new AccountTableModel();
     private static final int INVALID_CODE = -1;
-    private static final int PLACE_HOLDER_VALUE = 0;
     private static final int NEW_BRUN_CODE = 0;
     private static final int NEWARK_CODE = 1;
     private static final int CAMDEN_CODE = 2;
-    private static final int MIN_DEPOSIT = 2500;
     private static final int LOYAL_CODE = 1;
     private static final int NON_LOYAL_CODE = 0;
     private static final int INVALID_LOYAL_CODE = -1;
-    private static final int BEGIN_INDEX = 1;
+    private static final String JOURNAL_PROPERTY = "banking.journal";
+    private static final String DEFAULT_JOURNAL = "banking.journal";
+    private static final String SNAPSHOT_PROPERTY = "banking.snapshot";
+    private static final String DEFAULT_SNAPSHOT = "banking.snapshot";
+    private static final long SNAPSHOT_INTERVAL = 10000; //journaled changes between snapshots
     
     /**
     A default constructor to initialize the AccountDatabase object.
+    Restores the accounts from the latest snapshot, named by the banking.snapshot system property,
+    and the tail of the transaction journal, named by the banking.journal system property,
+    then journals every later change and takes a snapshot in the background every SNAPSHOT_INTERVAL changes.
+    @throws UncheckedIOException if the snapshot or the journal cannot be read, so the teller never works unjournaled.
     */
     public BankTellerController() {
         database = new AccountDatabase();
+        try {
+            Path snapshotFile = Paths.get(System.getProperty(SNAPSHOT_PROPERTY, DEFAULT_SNAPSHOT));
+            AccountSnapshot snapshot = AccountSnapshot.read(snapshotFile);
+            long snapshotSequence = 0;
+            if(snapshot != null) {
+                snapshot.restore(database);
+                snapshotSequence = snapshot.sequence();
+            }
+            TransactionJournal journal = new TransactionJournal(Paths.get(System.getProperty(JOURNAL_PROPERTY, DEFAULT_JOURNAL)));
+            journal.replay(database, snapshotSequence);
+            database.setJournal(journal);
+            ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            database.setSnapshots(snapshotFile, snapshotWriter, SNAPSHOT_INTERVAL, snapshotSequence);
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not restore the accounts: " + e.getMessage(), e);
+        }
+        service = new TransactionService(database);
+        worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "teller-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
     @FXML
@@ -105,12 +158,86 @@ public class BankTellerController {     //this class is similar to bankteller cl
     @FXML
     private TextArea textArea;
 
+    @FXML
+    private TableView<Account> accountTable;
+
+    @FXML
+    private TableColumn<Account, String> typeColumn;
+
+    @FXML
+    private TableColumn<Account, Profile> holderColumn;
+
+    @FXML
+    private TableColumn<Account, Long> balanceColumn;
+
+    @FXML
+    private TableColumn<Account, Long> feeColumn;
+
+    @FXML
+    private TableColumn<Account, Long> interestColumn;
+
+    @FXML
+    private TableColumn<Account, String> statusColumn;
+
+    @FXML
+    private ProgressBar reportProgress;
+
+    @FXML
+    private Button cancelReport;
+
     @FXML
     private ToggleGroup type;
 
     @FXML
     private ToggleGroup type1;
     
+    /**
+    Sets up the account table once the view is loaded.
+    Cells only format the rows on screen, and sorting reorders the model instead of the rows themselves.
+    Each column carries the AccountTableModel.Column it sorts by.
+    */
+    @FXML
+    void initialize() {
+        typeColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<String>(row.getValue().getType()));
+        typeColumn.setUserData(AccountTableModel.Column.TYPE);
+        holderColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<Profile>(row.getValue().holder));
+        holderColumn.setUserData(AccountTableModel.Column.HOLDER);
+        balanceColumn.setUserData(AccountTableModel.Column.BALANCE);
+        feeColumn.setUserData(AccountTableModel.Column.FEE);
+        interestColumn.setUserData(AccountTableModel.Column.INTEREST);
+        statusColumn.setUserData(AccountTableModel.Column.STATUS);
+        balanceColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<Long>(row.getValue().balance));
+        balanceColumn.setCellFactory(column -> new MoneyCell());
+        feeColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<Long>(row.getValue().fee()));
+        feeColumn.setCellFactory(column -> new MoneyCell());
+        interestColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<Long>(row.getValue().monthlyInterest()));
+        interestColumn.setCellFactory(column -> new MoneyCell());
+        statusColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<String>(row.getValue().closed ? "CLOSED" : ""));
+        accountTable.setItems(accountRows);
+        accountTable.setSortPolicy(table -> {
+            List<TableColumn<Account, ?>> sortOrder = table.getSortOrder();
+            AccountTableModel.Column [] columns = new AccountTableModel.Column[sortOrder.size()];
+            boolean [] descending = new boolean[sortOrder.size()];
+            for(int i = 0; i < columns.length; i++) {
+                columns[i] = (AccountTableModel.Column) sortOrder.get(i).getUserData();
+                descending[i] = sortOrder.get(i).getSortType() == TableColumn.SortType.DESCENDING;
+            }
+            accountRows.sort(columns, descending);
+            return true;
+        });
+    }
+    
+    /**
+    Table cell showing an amount in cents as dollars.
+    */
+    private static class MoneyCell extends TableCell<Account, Long> {
+        @Override
+        protected void updateItem(Long cents, boolean empty) {
+            super.updateItem(cents, empty);
+            setText(empty || cents == null ? null : "$" + Money.format(cents));
+        }
+    }
+    
     /**
     Disables the campus code buttons
     */
@@ -138,70 +265,39 @@ public class BankTellerController {     //this class is similar to bankteller cl
     }
     
     /**
-     * Takes in a String containing a date in YYYY-MM-DD format and converts it into a Date object.
-     * @param date String representation of a date in YYYY-MM-DD format.
+     * Converts the date picked in a DatePicker into a Date object.
+     * @param date the picked date.
      * @return A Date object
      */
-    private Date getDate(String date) {
-        String[] dateArray = date.split("-");
-        return new Date(dateArray[1] + "/" + dateArray[2] + "/" + dateArray[0]);
+    private Date getDate(LocalDate date) {
+        return new Date(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
     }
     
     /**
-     * Checks the user inputs from the Deposit and Withdraw tab to ensure they are all valid.
-     * @throws Exception
-     */
-    private void checkDWInputs(String operation) throws Exception {
-        if(firstNameDW.getText().isEmpty() || lastNameDW.getText().isEmpty() || dobDW.getValue() == null || amountDW.getText().isEmpty()) {
-            throw new Exception("Missing data for depositing or withdrawing.");
-        }
-        Date dob = getDate(dobDW.getValue().toString());
-        if(!dob.isValid() || dob.compareTo(new Date()) >= 0) {
-            throw new Exception("Date of birth invalid.");
-        }
-        double amount = Double.parseDouble(amountDW.getText());
-        if(amount <= 0) {
-        	if(operation.equals("Deposit")) {
-        		throw new Exception("Deposit - amount cannot be 0 or negative.");
-        	}
-        	else if(operation.equals("Withdraw")) {
-        		throw new Exception("Withdraw - amount cannot be 0 or negative.");
-        	}
-        	else {
-        		throw new Exception("Amount cannot be 0 or negative.");
-        	}
-        }
+    Shows a reply in the text area, one line per reply.
+    @param message the reply.
+    */
+    private void show(String message) {
+        textArea.appendText(message + "\n");
     }
     
     /**
-     * Checks to see if the account for the given parameters exist in the database, throwing an exception if it doesn't.
-     * @param customer contains the profile for the account creator
-     * @param amount contains the amount of money being deposited/withdrawn
-     * @param accountType contains a String representation of the account type.
-     * @throws Exception
-     */
-    private void checkDWAccount(Profile customer, double amount, String accountType) throws Exception {
-        if(accountType.equals("Checking")) {
-            Account checkingAccount = new Checking(customer, amount);
-            if(database.findAcc(checkingAccount) == ACCOUNT_NOT_FOUND){
-                throw new Exception(firstNameDW.getText() + " " + lastNameDW.getText() + " " + getDate(dobDW.getValue().toString()).toString() + " Checking" + " is not in the database.");
-            }
-        } else if(accountType.equals("CollegeChecking")) {
-            Account collegeCheckingAccount = new CollegeChecking(customer, amount);
-            if(database.findAcc(collegeCheckingAccount) == ACCOUNT_NOT_FOUND) {
-                throw new Exception(firstNameDW.getText() + " " + lastNameDW.getText() + " " + getDate(dobDW.getValue().toString()).toString() + " College Checking" + " is not in the database.");
-            }
-        } else if(accountType.equals("Savings")) {
-            Account savingsAccount = new Savings(customer, amount);
-            if(database.findAcc(savingsAccount) == ACCOUNT_NOT_FOUND) {
-                throw new Exception(firstNameDW.getText() + " " + lastNameDW.getText() + " " + getDate(dobDW.getValue().toString()).toString() + " Savings" + " is not in the database.");
-            }
-        } else if(accountType.equals("MoneyMarket")) {
-            Account moneyMarketAccount = new MoneyMarket(customer, amount);
-            if(database.findAcc(moneyMarketAccount) == ACCOUNT_NOT_FOUND) {
-                throw new Exception(firstNameDW.getText() + " " + lastNameDW.getText() + " " + getDate(dobDW.getValue().toString()).toString() + " Money Market" + " is not in the database.");
-            }
-        }
+    Runs a request on the worker thread and shows the reply once it is done.
+    The worker runs database calls in the order they were made, so replies come back in order too.
+    An unexpected error is shown as the reply instead of being lost on the worker thread.
+    @param request the request.
+    */
+    private void submit(TransactionRequest request) {
+        worker.execute(() -> {
+            String reply;
+            try {
+                reply = service.execute(request).getMessage();
+            } catch(RuntimeException e) {
+                reply = "Transaction failed: " + e.getMessage();
+            }
+            String message = reply;
+            Platform.runLater(() -> show(message));
+        });
     }
     
     /**
@@ -260,38 +356,7 @@ public class BankTellerController {     //this class is similar to bankteller cl
      */
     @FXML
     void deposit(ActionEvent event) {
-        try {
-            checkDWInputs("Deposit");
-            Date dob = getDate(dobDW.getValue().toString());
-            double depositAmount = Double.parseDouble(amountDW.getText());
-            String firstName = firstNameDW.getText().substring(0, 1).toUpperCase() + firstNameDW.getText().substring(1).toLowerCase();
-            String lastName = lastNameDW.getText().substring(0, 1).toUpperCase() + lastNameDW.getText().substring(1).toLowerCase();
-            Profile customer = new Profile(firstName, lastName, dob);
-            if(checkingDW.isSelected()) {
-                checkDWAccount(customer, depositAmount, "Checking");
-                Account checkingAccount = new Checking(customer, depositAmount);
-                database.deposit(checkingAccount);
-            } else if(collegeCheckingDW.isSelected()) {
-                checkDWAccount(customer, depositAmount, "CollegeChecking");
-                Account collegeCheckingAccount = new CollegeChecking(customer, depositAmount);
-                database.deposit(collegeCheckingAccount);
-            } else if(savingsDW.isSelected()) {
-                checkDWAccount(customer, depositAmount, "Savings");
-                Account savingsAccount = new Savings(customer, depositAmount);
-                database.deposit(savingsAccount);
-            } else if(moneyMarketDW.isSelected()) {
-                checkDWAccount(customer, depositAmount, "MoneyMarket");
-                Account moneyMarketAccount = new MoneyMarket(customer, depositAmount);
-                database.deposit(moneyMarketAccount);
-            }
-            textArea.appendText("Deposit - balance updated.\n");
-        }
-        catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
+        depositOrWithdraw(true);
     }
     
     /**
@@ -300,45 +365,101 @@ public class BankTellerController {     //this class is similar to bankteller cl
      */
     @FXML
     void withdraw(ActionEvent event) {
+        depositOrWithdraw(false);
+    }
+    
+    /**
+    Reads the Deposit and Withdraw tab and sends a deposit or withdrawal request to the service.
+    @param deposit true to deposit, false to withdraw.
+    */
+    private void depositOrWithdraw(boolean deposit) {
+        if(firstNameDW.getText().isEmpty() || lastNameDW.getText().isEmpty() || dobDW.getValue() == null || amountDW.getText().isEmpty()) {
+            show("Missing data for depositing or withdrawing.");
+            return;
+        }
+        long amount;
         try {
-            checkDWInputs("Withdraw");
-            Date dob = getDate(dobDW.getValue().toString());
-            double withdrawAmount = Double.parseDouble(amountDW.getText());
-            String firstName = firstNameDW.getText().substring(0, 1).toUpperCase() + firstNameDW.getText().substring(1).toLowerCase();
-            String lastName = lastNameDW.getText().substring(0, 1).toUpperCase() + lastNameDW.getText().substring(1).toLowerCase();
-            Profile customer = new Profile(firstName, lastName, dob);
-            if(checkingDW.isSelected()) {
-                checkDWAccount(customer, withdrawAmount, "Checking");
-                Account checkingAccount = new Checking(customer, withdrawAmount);
-                if(database.withdraw(checkingAccount) == false) {
-                    throw new Exception("Withdraw - insufficient fund.");
-                }
-            } else if(collegeCheckingDW.isSelected()) {
-                checkDWAccount(customer, withdrawAmount, "CollegeChecking");
-                Account collegeCheckingAccount = new CollegeChecking(customer, withdrawAmount);
-                if(database.withdraw(collegeCheckingAccount) == false) {
-                    throw new Exception("Withdraw - insufficient fund.");
-                }
-            } else if(savingsDW.isSelected()) {
-                checkDWAccount(customer, withdrawAmount, "Savings");
-                Account savingsAccount = new Savings(customer, withdrawAmount);
-                if(database.withdraw(savingsAccount) == false) {
-                    throw new Exception("Withdraw - insufficient fund.");
-                }
-            } else if(moneyMarketDW.isSelected()) {
-                checkDWAccount(customer, withdrawAmount, "MoneyMarket");
-                Account moneyMarketAccount = new MoneyMarket(customer, withdrawAmount);
-                if(database.withdraw(moneyMarketAccount) == false) {
-                    throw new Exception("Withdraw - insufficient fund.");
-                }
-            }
-            textArea.appendText("Withdraw - balance updated.\n");
+            amount = Money.parse(amountDW.getText());
         }
         catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
+            show("Not a valid amount.");
+            return;
+        }
+        Date dob = getDate(dobDW.getValue());
+        AccountType accountType = typeOfAccountDW();
+        TransactionRequest request;
+        if(deposit) {
+            request = TransactionRequest.deposit(accountType, firstNameDW.getText(), lastNameDW.getText(), dob, amount);
+        } else {
+            request = TransactionRequest.withdraw(accountType, firstNameDW.getText(), lastNameDW.getText(), dob, amount);
+        }
+        submit(request);
+    }
+    
+    /**
+    Refreshes the account table from the worker thread, updating the balances first if asked.
+    The progress bar follows the copy of the accounts and the Cancel button stops it.
+    @param updateBalances whether to run the month-end update first.
+    @param sortColumn the column to sort by, null for database order.
+    @param details whether to show the fee and monthly interest columns.
+    */
+    private void showAccounts(boolean updateBalances, TableColumn<Account, ?> sortColumn, boolean details) {
+        if(runningListing != null) {
+            show("A listing is already running.");
+            return;
+        }
+        AccountTableTask task = new AccountTableTask(service, database, updateBalances);
+        reportProgress.progressProperty().bind(task.progressProperty());
+        cancelReport.setDisable(false);
+        runningListing = task;
+        task.setOnSucceeded(event -> {
+            AccountSnapshot image = task.getValue();
+            if(image == null) {
+                show("Account Database is empty!");
+            } else {
+                if(sortColumn == null) {
+                    accountTable.getSortOrder().clear();
+                } else {
+                    sortColumn.setSortType(TableColumn.SortType.ASCENDING);
+                    accountTable.getSortOrder().setAll(Collections.singletonList(sortColumn));
+                }
+                feeColumn.setVisible(details);
+                interestColumn.setVisible(details);
+                accountRows.setImage(image);
+                accountTable.scrollTo(0);
+            }
+            listingDone();
+        });
+        task.setOnCancelled(event -> {
+            show("*listing cancelled.");
+            listingDone();
+        });
+        task.setOnFailed(event -> {
+            show(task.getException().getMessage());
+            listingDone();
+        });
+        worker.execute(task);
+    }
+    
+    /**
+    Resets the progress bar and Cancel button after a listing.
+    */
+    private void listingDone() {
+        reportProgress.progressProperty().unbind();
+        reportProgress.setProgress(0);
+        cancelReport.setDisable(true);
+        runningListing = null;
+    }
+    
+    /**
+    Stops the running listing at its next batch.
+    The worker is not interrupted, since that would close the journal if a month-end update is being written.
+    @param event the ActionEvent.
+    */
+    @FXML
+    void cancelReport(ActionEvent event) {
+        if(runningListing != null) {
+            runningListing.cancel(false);
         }
     }
     
@@ -348,22 +469,7 @@ public class BankTellerController {     //this class is similar to bankteller cl
     */
     @FXML
     void displayAllAccounts(ActionEvent event) { //check if this is the right method
-        try{
-            if(database.sizeOfDatabase() == 0) {
-                throw new Exception("Account Database is empty!");
-            }
-            textArea.appendText("*list of accounts in the database*\n");
-            String aggregateOutput = database.print();
-            aggregateOutput = aggregateOutput.substring(BEGIN_INDEX);            
-            String[] aggregateOutputList = aggregateOutput.split("\\+");  
-            for(int i = 0; i < aggregateOutputList.length; i++) {
-                textArea.appendText(aggregateOutputList[i] + "\n");
-            }
-            textArea.appendText("*end of list*\n");
-        }
-        catch(Exception e){
-            textArea.appendText(e.getMessage() + "\n");
-        }
+        showAccounts(false, null, false);
     }
     
     /**
@@ -372,22 +478,7 @@ public class BankTellerController {     //this class is similar to bankteller cl
     */
     @FXML
     void displayByType(ActionEvent event) {
-        try{
-            if(database.sizeOfDatabase() == 0) {
-                throw new Exception("Account Database is empty!");
-            }
-            textArea.appendText("*list of accounts by account type.\n");
-            String aggregateOutput = database.printByAccountType();
-            aggregateOutput = aggregateOutput.substring(BEGIN_INDEX);
-            String[] aggregateOutputList = aggregateOutput.split("\\+");
-            for(int i = 0; i < aggregateOutputList.length; i++) {
-                textArea.appendText(aggregateOutputList[i] + "\n");
-            }           
-            textArea.appendText("*end of list.\n");
-        }
-        catch(Exception e){
-            textArea.appendText(e.getMessage() + "\n");
-        }
+        showAccounts(false, typeColumn, false);
     }
     
     /**
@@ -396,58 +487,16 @@ public class BankTellerController {     //this class is similar to bankteller cl
     */
     @FXML
     void displayWithDetails(ActionEvent event) {
-        try{
-            if(database.sizeOfDatabase() == 0) {
-                throw new Exception("Account Database is empty!");
-            }
-            textArea.appendText("*list of accounts with fee and monthly interest\n");
-            String aggregateOutput = database.printFeeAndInterest();
-            aggregateOutput = aggregateOutput.substring(BEGIN_INDEX);
-            String[] aggregateOutputList = aggregateOutput.split("\\+");
-            for(int i = 0; i < aggregateOutputList.length; i++) {
-                textArea.appendText(aggregateOutputList[i] + "\n");
-            }                       
-            textArea.appendText("*end of list.\n");
-        }
-        catch(Exception e){
-            textArea.appendText(e.getMessage() + "\n");
-        }
+        showAccounts(false, null, true);
     }
     
-    
     /**
     Updates all accounts and displays them
     @param event the ActionEvent.
     */
     @FXML
     void updateDisplay(ActionEvent event) {
-        try{
-            if(database.sizeOfDatabase() == 0) {
-                throw new Exception("Account Database is empty!");
-            }
-            database.updateBalances();
-            textArea.appendText("*list of accounts with updated balance\n");
-            String aggregateOutput = database.print();
-            aggregateOutput = aggregateOutput.substring(BEGIN_INDEX);
-            String[] aggregateOutputList = aggregateOutput.split("\\+");
-            for(int i = 0; i < aggregateOutputList.length; i++) {
-                textArea.appendText(aggregateOutputList[i] + "\n");
-            }
-            textArea.appendText("*end of list.\n");
-        }
-        catch(Exception e){
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-
-    /**
-    Formats the date properly to pass to Date constructor.
-    @return String the formatted date.
-    */
-    private String formatDate() {
-        String inputDate = dob.getValue().toString();
-        String[] dateComponents = inputDate.split("-");
-        return dateComponents[1] + "/" + dateComponents[2] + "/" + dateComponents[0]; 
+        showAccounts(true, null, false);
     }
     
     /**
@@ -456,72 +505,26 @@ public class BankTellerController {     //this class is similar to bankteller cl
     */
     @FXML
     void openAccount(ActionEvent event) {
+        AccountType accountType = typeOfAccount();
+        //check if fundamental requirements are missing
+        if(firstName.getText().isEmpty() || lastName.getText().isEmpty() || dob.getValue() == null || initialDeposit.getText().isEmpty()
+                || (accountType == AccountType.COLLEGE_CHECKING && getCorrespondingCampusCode() == INVALID_CODE)
+                || (accountType == AccountType.SAVINGS && loyalCode() == INVALID_LOYAL_CODE)) {
+            show("Missing data for opening an account.");
+            return;
+        }
+        long initialBalance;
         try {
-            //check if 3 fundamental requirements are msising
-            if(firstName.getText().isEmpty() || lastName.getText().isEmpty() || dob.getValue() == null || initialDeposit.getText().isEmpty()) {
-                throw new Exception("Missing data for opening an account.");
-            }
-            String givenDate = formatDate();
-            String firstNameInput = firstName.getText().substring(0,1).toUpperCase() + firstName.getText().substring(1).toLowerCase();
-            String lastNameInput = lastName.getText().substring(0,1).toUpperCase() + lastName.getText().substring(1).toLowerCase();
-            if(checking.isSelected()) {
-                openCheckingAccount(firstNameInput, lastNameInput, givenDate);
-            }
-            else if(collegeChecking.isSelected()) {
-                openCollegeCheckingAccount(firstNameInput, lastNameInput, givenDate);
-            }
-            else if(savings.isSelected()) {
-                openSavingsAccount(firstNameInput, lastNameInput, givenDate);
-            }
-            else if(moneyMarket.isSelected()) {
-                openMMAccount(firstNameInput, lastNameInput, givenDate);
-            }
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-    
-    /**
-    Opens a checking account.
-    @param firstNameCap the given first name capitalized
-    @param lastNameCap the given last name capitalized
-    @param givenDate the given date formatted
-    */
-    private void openCheckingAccount(String firstNameCap, String lastNameCap, String givenDate) {
-        try{
-            //missing data taken care of by caller method.
-            Date customerDob = new Date(givenDate);
-            if(!customerDob.isValid() || customerDob.compareTo(new Date()) > 0) {
-                throw new Exception("Date of birth invalid.");
-            }
-            double inputBalance = Double.parseDouble(initialDeposit.getText());
-            if(inputBalance <= 0) {
-                throw new Exception("Initial deposit cannot be 0 or negative.");
-            }
-            Profile customer = new Profile(firstNameCap, lastNameCap, customerDob);
-            Account newCheckingAccount = new Checking(customer, false, inputBalance);
-            Account testCollegeCheckingAccount = new CollegeChecking(customer, PLACE_HOLDER_VALUE);
-            if(database.findAcc(testCollegeCheckingAccount) != ACCOUNT_NOT_FOUND) {
-                //Customer already has a college checking account, so a checking account cannot be added.
-                throw new Exception(customer.toString() + " same account(type) is in the database.");
-            } else if(database.findAcc(newCheckingAccount) == ACCOUNT_NOT_FOUND) {
-                database.open(newCheckingAccount);
-                textArea.appendText("Account opened.\n");
-            } else { //Checking account is already in the system, may be open or closed.
-                if(database.open(newCheckingAccount)) {
-                    textArea.appendText("Account reopened.\n");
-                } else { //Checking account is already open.
-                    throw new Exception(customer.toString() + " same account(type) is in the database.");
-                }
-            }           
+            initialBalance = Money.parse(initialDeposit.getText());
         }
         catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
+            show("Not a valid amount.");
+            return;
         }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        } 
+        int option = accountType == AccountType.COLLEGE_CHECKING ? getCorrespondingCampusCode() : loyalCode();
+        TransactionRequest request = TransactionRequest.open(accountType, firstName.getText(), lastName.getText(),
+                getDate(dob.getValue()), initialBalance, option);
+        submit(request);
     }
     
     /**
@@ -543,53 +546,6 @@ public class BankTellerController {     //this class is similar to bankteller cl
         }
     }
     
-    /**
-    Opens a college checking account.
-    @param firstNameCap the given first name capitalized
-    @param lastNameCap the given last name capitalized
-    @param givenDate the given date formatted
-    */
-    private void openCollegeCheckingAccount(String firstNameCap, String lastNameCap, String givenDate) {
-        try {
-            if(!buttonNB.isSelected() && !buttonNW.isSelected() && !buttonCamden.isSelected()) {
-                throw new Exception("Missing data for opening an account.");
-            }
-            Date customerDob = new Date(givenDate);
-            if(!customerDob.isValid() || customerDob.compareTo(new Date()) > 0) {
-                throw new Exception("Date of birth invalid.");
-            }
-            double inputBalance = Double.parseDouble(initialDeposit.getText());
-            if(inputBalance <= 0) {
-                throw new Exception("Initial deposit cannot be 0 or negative.");
-            }
-            int campusCode = getCorrespondingCampusCode();
-            if(!(campusCode >= NEW_BRUN_CODE && campusCode <= CAMDEN_CODE)) {
-                throw new Exception("Invalid campus code.");
-            }
-            Profile customer = new Profile(firstNameCap, lastNameCap, customerDob);
-            Account testCheckingAccount = new Checking(customer, PLACE_HOLDER_VALUE);
-            Account newCollegeCheckingAccount = new CollegeChecking(customer, false, inputBalance, campusCode);
-            if(database.findAcc(testCheckingAccount) != ACCOUNT_NOT_FOUND) {
-                throw new Exception(customer.toString() + " same account(type) is in the database.");
-            } else if(database.findAcc(newCollegeCheckingAccount) == ACCOUNT_NOT_FOUND) {
-                database.open(newCollegeCheckingAccount);
-                textArea.appendText("Account opened.\n");
-            } else { //College checking account is already in the system, may be open or closed.
-                if(database.open(newCollegeCheckingAccount)) {
-                    textArea.appendText("Account reopened.\n");
-                } else { //College Checking account is already open.
-                    throw new Exception(customer.toString() + " same account(type) is in the database.");
-                }
-            }
-        }
-        catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-
     /**
     Returns the loyalty code.
     @return int the corresponding number for loyalty status.
@@ -605,181 +561,56 @@ public class BankTellerController {     //this class is similar to bankteller cl
     }
     
     /**
-    Opens a savings account.
-    @param firstNameCap the given first name capitalized
-    @param lastNameCap the given last name capitalized
-    @param givenDate the given date formatted
-    */
-    private void openSavingsAccount(String firstNameCap, String lastNameCap, String givenDate) {
-        try {
-            if(!buttonLoyal.isSelected() && !buttonNonLoyal.isSelected()) {
-                throw new Exception("Missing data for opening an account.");
-            }
-            Date customerDob = new Date(givenDate);
-            if(!customerDob.isValid() || customerDob.compareTo(new Date()) > 0) {
-                throw new Exception("Date of birth invalid.");
-            }
-            if(Double.parseDouble(initialDeposit.getText()) <= 0) {
-                throw new Exception("Initial deposit cannot be 0 or negative.");
-            }
-            //Finding the account
-            Profile holder = new Profile(firstNameCap, lastNameCap, customerDob);
-            Account acc = new Savings(holder, false, Double.parseDouble(initialDeposit.getText()), loyalCode());
-            if(database.findAcc(acc) != ACCOUNT_NOT_FOUND) {// acc exists
-                if(database.isClosed(acc)) { //is it closed?
-                    database.open(acc); //reopen
-                    textArea.appendText("Account reopened.\n");
-                }
-                else { //it's already open
-                    throw new Exception(acc.holder.toString() + " same account(type) is in the database.");    
-                }
-            }
-            else {//account not found
-                database.open(acc);
-                textArea.appendText("Account opened.\n");
-            }
-        }
-        catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-    
-    /**
-    Opens a money market account.
-    @param firstNameCap the given first name capitalized
-    @param lastNameCap the given last name capitalized
-    @param givenDate the given date formatted
-    */
-    private void openMMAccount(String firstNameCap, String lastNameCap, String givenDate) {
-        try {
-            Date customerDOB = new Date(givenDate);
-            if(!customerDOB.isValid() || customerDOB.compareTo(new Date()) > 0) {
-                throw new Exception("Date of birth invalid.");
-            }
-            if(Double.parseDouble(initialDeposit.getText()) <= 0) {
-                throw new Exception("Initial deposit cannot be 0 or negative.");
-            }
-            if(Double.parseDouble(initialDeposit.getText()) < MIN_DEPOSIT) {
-                throw new Exception("Minimum of $2500 to open a MoneyMarket account.");
-            }
-            //Finding the account
-            Profile holder = new Profile(firstNameCap, lastNameCap, customerDOB);
-            Account acc = new MoneyMarket(holder, false, Double.parseDouble(initialDeposit.getText()));
-            if(database.findAcc(acc) != ACCOUNT_NOT_FOUND) {// acc exists
-                if(database.isClosed(acc)) { //is it closed?
-                    database.open(acc); //reopen
-                    textArea.appendText("Account reopened.\n");
-                }
-                else { //it's already open
-                    throw new Exception(acc.holder.toString() + " same account(type) is in the database.");    
-                }
-            }
-            else {//account not found
-                database.open(acc);
-                textArea.appendText("Account opened.\n");
-            }
-        }
-        catch(NumberFormatException e) {
-            textArea.appendText("Not a valid amount.\n");
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-    
-    /**
-    Reformats the given date before calling method to close the account
+    Reads the Open and Close tab and sends a close request to the service.
     @param event the ActionEvent.
     */
     @FXML
     void closeAccount(ActionEvent event) {
-        try {
-            if(firstName.getText().isEmpty() || lastName.getText().isEmpty() || dob.getValue() == null) {
-                throw new Exception("Missing data for closing an account.");
-            }
-            String givenDate = formatDate();
-            String firstNameInput = firstName.getText().substring(0,1).toUpperCase() + firstName.getText().substring(1).toLowerCase();
-            String lastNameInput = lastName.getText().substring(0,1).toUpperCase() + lastName.getText().substring(1).toLowerCase();
-            closeAccountMethod(firstNameInput, lastNameInput, givenDate);
-        }
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
-        }
-    }
-    
-    /**
-    Closes the account with given details.
-    @param firstNameCap the given first name capitalized
-    @param lastNameCap the given last name capitalized
-    @param givenDate the given date formatted
-    */
-    private void closeAccountMethod(String firstNameCap, String lastNameCap, String givenDate) {
-        try {
-            Date customerDOB = new Date(givenDate);
-            if(!customerDOB.isValid()) {
-                throw new Exception("Date of birth invalid.");
-            }
-            Profile profile = new Profile(firstNameCap, lastNameCap, customerDOB);
-            Account matchingAcc = createTempAcc(profile, PLACE_HOLDER_VALUE);
-            if(database.findAcc(matchingAcc) == ACCOUNT_NOT_FOUND) {
-                throw new Exception("Account not in database.");
-            }
-            if(database.close(matchingAcc)) {
-                textArea.appendText("Account closed.\n");
-            }
-            else {
-                throw new Exception("Account is closed already.");
-            }
-        }  
-        catch(Exception e) {
-            textArea.appendText(e.getMessage() + "\n");
+        if(firstName.getText().isEmpty() || lastName.getText().isEmpty() || dob.getValue() == null) {
+            show("Missing data for closing an account.");
+            return;
         }
+        TransactionRequest request = TransactionRequest.close(typeOfAccount(), firstName.getText(), lastName.getText(), getDate(dob.getValue()));
+        submit(request);
     }
     
     /**
-    Creates a temporary account
-    @param holder the Profile of account
-    @param amount the balance
-    @return Account the temporary account
+    Returns the type of account chosen on the Open and Close tab.
+    @return AccountType the type of account, null if none is chosen.
     */
-    private Account createTempAcc(Profile holder, double amount) {
-        Account tempAcc = null;
-        String type = typeOfAccount();
-        if(type.equals("Checking")) {
-            tempAcc = new Checking(holder, amount); //amount set to 0 since its not useful here
-        }
-        else if(type.equals("CollegeChecking")) {
-            tempAcc = new CollegeChecking(holder, amount);
+    private AccountType typeOfAccount() {
+        if(checking.isSelected()) {
+            return AccountType.CHECKING;
         }
-        else if(type.equals("Savings")){
-            tempAcc = new Savings(holder, amount);
+        else if(collegeChecking.isSelected()) {
+            return AccountType.COLLEGE_CHECKING;
         }
-        else if(type.equals("MoneyMarket")) {
-            tempAcc = new MoneyMarket(holder, amount);
+        else if(savings.isSelected()) {
+            return AccountType.SAVINGS;
+        }   
+        else if(moneyMarket.isSelected()) {
+            return AccountType.MONEY_MARKET;
         }
-        return tempAcc;
+        return null;
     }
     
     /**
-    Returns the type of account.
-    @return String the type of account.
+    Returns the type of account chosen on the Deposit and Withdraw tab.
+    @return AccountType the type of account, null if none is chosen.
     */
-    private String typeOfAccount() {
-        if(checking.isSelected()) {
-            return "Checking";
+    private AccountType typeOfAccountDW() {
+        if(checkingDW.isSelected()) {
+            return AccountType.CHECKING;
         }
-        else if(collegeChecking.isSelected()) {
-            return "CollegeChecking";
+        else if(collegeCheckingDW.isSelected()) {
+            return AccountType.COLLEGE_CHECKING;
         }
-        else if(savings.isSelected()) {
-            return "Savings";
+        else if(savingsDW.isSelected()) {
+            return AccountType.SAVINGS;
         }   
-        else if(moneyMarket.isSelected()) {
-            return "MoneyMarket";
+        else if(moneyMarketDW.isSelected()) {
+            return AccountType.MONEY_MARKET;
         }
         return null;
     }
-}
\ No newline at end of file
+}
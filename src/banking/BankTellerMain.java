@@ -1,6 +1,8 @@
 package banking;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
@@ -23,6 +25,7 @@ public class BankTellerMain extends Application {
     }
     /**
     Creates a scene and displays it in a stage.
+    If the view cannot be loaded, for example because the journal cannot be read, the reason is shown and the application exits.
     @param primaryStage the stage.
     */
 	@Override
@@ -36,9 +39,26 @@ public class BankTellerMain extends Application {
 			primaryStage.show();
 		} catch(Exception e) {
 			e.printStackTrace();
+			Alert alert = new Alert(Alert.AlertType.ERROR, reason(e));
+			alert.setHeaderText("BankTeller cannot start.");
+			alert.showAndWait();
+			Platform.exit();
 		}
 	}
 	
+	/**
+	Finds the message of the error that started a chain of exceptions.
+	@param e the exception caught.
+	@return String the message of its innermost cause.
+	*/
+	private static String reason(Throwable e) {
+		Throwable cause = e;
+		while(cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+	}
+	
 	/**
 	Launches the JavaFX application.
 	@param args the command line arguments
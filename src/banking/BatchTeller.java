@@ -0,0 +1,263 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+Runs a file of teller commands without the GUI, one command per line, in the project 2 format:
+O, C, D and W with an account type of C, CC, S or MM, followed by P, PT, PI and UB, and Q to stop.
+Each command is turned into a request for the TransactionService, so it is validated and applied
+the same way as from the teller screen, and each reply is written on its own line.
+Lines are streamed through a large buffer and split by hand, so a feed of millions of commands runs in seconds.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class BatchTeller {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKENS = 8;
+    private static final int COMMAND = 0;
+    private static final int TYPE = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int LAST_NAME = 3;
+    private static final int DOB = 4;
+    private static final int AMOUNT = 5;
+    private static final int OPTION = 6; //campus code or loyal code
+    private static final int CLOSE_TOKENS = 5;
+    private static final int AMOUNT_TOKENS = 6;
+    private static final int OPTION_TOKENS = 7;
+    private static final int NO_OPTION = -1;
+    private static final char LINE_END = '\n';
+    private static final String COLUMNAR_OPTION = "-columnar";
+    private static final String MAPPED_OPTION = "-mapped";
+
+    private final TransactionService service;
+    private final String [] tokens = new String[MAX_TOKENS];
+
+    /**
+    Creates a batch teller working on the given store.
+    @param database the store the commands are applied to, such as an AccountDatabase.
+    */
+    public BatchTeller(AccountStore database) {
+        this.service = new TransactionService(database);
+    }
+
+    /**
+    Runs every command until the end of the input or a Q command.
+    @param in the commands, one per line.
+    @param out where the replies are written.
+    @return long the number of commands run.
+    @throws IOException if reading the commands or writing the replies fails.
+    */
+    public long run(Reader in, Appendable out) throws IOException {
+        service.setToday(new Date()); //dates of birth are checked against the day the batch started
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_SIZE);
+        long commands = 0;
+        String line;
+        while((line = reader.readLine()) != null) {
+            int count = split(line);
+            if(count == 0) {
+                continue;
+            }
+            if(tokens[COMMAND].equals("Q")) {
+                break;
+            }
+            commands++;
+            run(count, out);
+        }
+        return commands;
+    }
+
+    /**
+    Splits a line on whitespace into the token buffer.
+    @param line the command line.
+    @return int the number of tokens, extra ones past MAX_TOKENS are dropped.
+    */
+    private int split(String line) {
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+        while(i < length && count < MAX_TOKENS) {
+            while(i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while(i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if(i > start) {
+                tokens[count++] = line.substring(start, i);
+            }
+        }
+        return count;
+    }
+
+    /**
+    Runs one command held in the token buffer.
+    @param count the number of tokens.
+    @param out where the reply is written.
+    @throws IOException if writing the reply fails.
+    */
+    private void run(int count, Appendable out) throws IOException {
+        TransactionService.Report report;
+        switch(tokens[COMMAND]) {
+        case "O":
+        case "C":
+        case "D":
+        case "W":
+            reply(out, execute(count));
+            return;
+        case "P":
+            report = TransactionService.Report.ALL;
+            break;
+        case "PT":
+            report = TransactionService.Report.BY_TYPE;
+            break;
+        case "PI":
+            report = TransactionService.Report.FEE_AND_INTEREST;
+            break;
+        case "UB":
+            report = TransactionService.Report.UPDATED_BALANCES;
+            break;
+        default:
+            reply(out, "Invalid command!");
+            return;
+        }
+        TransactionResult result = service.report(report, out);
+        if(!result.isSuccess()) {
+            reply(out, result.getMessage());
+        }
+    }
+
+    /**
+    Writes one reply line.
+    @param out where the reply is written.
+    @param message the reply.
+    @throws IOException if writing fails.
+    */
+    private static void reply(Appendable out, String message) throws IOException {
+        out.append(message).append(LINE_END);
+    }
+
+    /**
+    Turns an O, C, D or W command into a request and runs it.
+    Only the text is checked here; the rules are the service's.
+    @param count the number of tokens.
+    @return String the reply.
+    */
+    private String execute(int count) {
+        String command = tokens[COMMAND];
+        AccountType accountType = count > TYPE ? accountType(tokens[TYPE]) : null;
+        if(count > TYPE && accountType == null) {
+            return "Invalid command!";
+        }
+        boolean open = command.equals("O");
+        boolean close = command.equals("C");
+        boolean needsOption = open && (accountType == AccountType.COLLEGE_CHECKING || accountType == AccountType.SAVINGS);
+        if(count < (close ? CLOSE_TOKENS : needsOption ? OPTION_TOKENS : AMOUNT_TOKENS)) {
+            if(open) {
+                return "Missing data for opening an account.";
+            }
+            return close ? "Missing data for closing an account." : "Missing data for depositing or withdrawing.";
+        }
+        Date dob;
+        try {
+            dob = new Date(tokens[DOB]);
+        } catch(RuntimeException e) {
+            return "Date of birth invalid.";
+        }
+        if(close) {
+            return service.execute(TransactionRequest.close(accountType, tokens[FIRST_NAME], tokens[LAST_NAME], dob)).getMessage();
+        }
+        long amount;
+        int option = NO_OPTION;
+        try {
+            amount = Money.parse(tokens[AMOUNT]);
+        } catch(NumberFormatException e) {
+            return "Not a valid amount.";
+        }
+        if(needsOption) {
+            try {
+                option = Integer.parseInt(tokens[OPTION]);
+            } catch(NumberFormatException e) {
+                return "Missing data for opening an account.";
+            }
+        }
+        TransactionRequest request;
+        if(open) {
+            request = TransactionRequest.open(accountType, tokens[FIRST_NAME], tokens[LAST_NAME], dob, amount, option);
+        } else if(command.equals("D")) {
+            request = TransactionRequest.deposit(accountType, tokens[FIRST_NAME], tokens[LAST_NAME], dob, amount);
+        } else {
+            request = TransactionRequest.withdraw(accountType, tokens[FIRST_NAME], tokens[LAST_NAME], dob, amount);
+        }
+        return service.execute(request).getMessage();
+    }
+
+    /**
+    Maps a command's account type code to the account type.
+    @param code C, CC, S or MM.
+    @return AccountType the account type, or null if the code is unknown.
+    */
+    private static AccountType accountType(String code) {
+        switch(code) {
+        case "C":
+            return AccountType.CHECKING;
+        case "CC":
+            return AccountType.COLLEGE_CHECKING;
+        case "S":
+            return AccountType.SAVINGS;
+        case "MM":
+            return AccountType.MONEY_MARKET;
+        default:
+            return null;
+        }
+    }
+
+    /**
+    Runs a command file.
+    The accounts are kept in a new AccountDatabase, in a new ColumnarAccountDatabase with -columnar,
+    or with -mapped in a MappedAccountDatabase on the given file, which keeps them for the next run.
+    @param args -columnar or -mapped and an account file optionally, then the command file,
+    and optionally the file to write the replies to instead of standard output.
+    @throws IOException if a file cannot be read or written.
+    */
+    public static void main(String [] args) throws IOException {
+        boolean columnar = args.length > 0 && args[0].equals(COLUMNAR_OPTION);
+        boolean mapped = args.length > 0 && args[0].equals(MAPPED_OPTION);
+        int first = columnar ? 1 : mapped ? 2 : 0; //the command file
+        if(args.length < first + 1) {
+            System.err.println("Usage: java banking.BatchTeller [" + COLUMNAR_OPTION + " | " + MAPPED_OPTION
+                    + " <account file>] <command file> [reply file]");
+            return;
+        }
+        AccountStore store;
+        if(columnar) {
+            store = new ColumnarAccountDatabase();
+        } else if(mapped) {
+            store = new MappedAccountDatabase(Paths.get(args[1]));
+        } else {
+            store = new AccountDatabase();
+        }
+        BatchTeller teller = new BatchTeller(store);
+        long start = System.nanoTime();
+        long commands;
+        try(BufferedReader in = Files.newBufferedReader(Paths.get(args[first]), StandardCharsets.UTF_8);
+            Writer out = args.length > first + 1 ? Files.newBufferedWriter(Paths.get(args[first + 1]), StandardCharsets.UTF_8)
+                    : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            commands = teller.run(in, out);
+        } finally {
+            if(store instanceof Closeable) {
+                ((Closeable) store).close();
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.err.println(commands + " commands in " + millis + " ms.");
+    }
+}
@@ -7,18 +7,16 @@ It inherits all the data fields and methods from Account superclass
 */
 public class Checking extends Account { //includes specific data/operations to regular checking account
     
-    private static final double MONTHLY_FEE = 25;
-    private static final double WAIVED_THRESHOLD = 1000.0;
-    private static final double ANNUAL_INTEREST_RATE_PERCENT = 0.1;
-    public static final double TOTAL_PERCENTAGE = 100;
-    public static final double ANNUAL_DURATION = 12;
+    private static final long MONTHLY_FEE = 2500; //$25.00 in cents
+    private static final long WAIVED_THRESHOLD = 100000; //$1,000.00 in cents
+    private static final long ANNUAL_INTEREST_RATE_BASIS_POINTS = 10; //0.1%
     
     /**
     Creates a temporary Checking account used for withdrawing and depositing.
     @param holder the profile of this temporary account.
-    @param amount the amount to deposit or withdraw.
+    @param amount the amount to deposit or withdraw in cents.
     */
-    public Checking(Profile holder, double amount) { //used to create temporary account when withdrawing/depositing
+    public Checking(Profile holder, long amount) { //used to create temporary account when withdrawing/depositing
         super(holder, false, amount);
     }
     
@@ -26,9 +24,9 @@ public class Checking extends Account { //includes specific data/operations to r
     Creates a checking account that could be open.
     @param holder the profile of this checking account.
     @param closed the boolean value whether it is closed or open.
-    @param balance the balance of the account to open.
+    @param balance the balance of the account to open in cents.
     */
-    public Checking(Profile holder, boolean closed, double balance) { //each account holder can only have one checking account
+    public Checking(Profile holder, boolean closed, long balance) { //each account holder can only have one checking account
         super(holder, closed, balance);
     }
     
@@ -45,35 +43,37 @@ public class Checking extends Account { //includes specific data/operations to r
     }
     
     /**
-    Determines if the calling Checking account is equal to the obj account.
-    @param obj the Object to compare with.
-    @return true if equal, false otherwise.
+    Calculates the monthly interest for checking accounts.
+    @return long the monthly interest in cents
     */
-    @Override
-    public boolean equals(Object obj) { //What is purpose of this if we're going to override it in subclass?
-        if(obj instanceof Account) {
-            Account account = (Account) obj;
-            return super.equals(account) && this.getType().equals(account.getType());
-        } 
-        return false;
+    public long monthlyInterest() {//return the monthly interest
+        return interestOn(balance);
     }
     
     /**
-    Calculates the monthly interest for checking accounts.
-    @return double the monthly interest
+    Calculates the monthly interest a checking account earns on a balance.
+    @param balance the balance in cents.
+    @return long the monthly interest in cents
     */
-    public double monthlyInterest() {//return the monthly interest
-        double annualInterestRate = ANNUAL_INTEREST_RATE_PERCENT / TOTAL_PERCENTAGE;
-        double monthlyInterestRate = annualInterestRate / ANNUAL_DURATION;
-        return balance * monthlyInterestRate;
+    static long interestOn(long balance) {
+        return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_BASIS_POINTS);
     }
     
     /**
     Returns the monthly fee for checking accounts.
     Fees are wavied if balance meets certain threshold.
-    @return double the monthly fee calculated.
+    @return long the monthly fee calculated in cents.
+    */
+    public long fee() { //return the monthly fee
+        return feeOn(balance);
+    }
+    
+    /**
+    Returns the monthly fee a checking account pays on a balance.
+    @param balance the balance in cents.
+    @return long the monthly fee in cents.
     */
-    public double fee() { //return the monthly fee
+    static long feeOn(long balance) {
         if(balance >= WAIVED_THRESHOLD) {
             return 0;
         }
@@ -88,6 +88,14 @@ public class Checking extends Account { //includes specific data/operations to r
         return "Checking";
     }
     
+    /**
+    Returns the type of account for this class.
+    @return AccountType CHECKING.
+    */
+    public AccountType getAccountType() {
+        return AccountType.CHECKING;
+    }
+    
     /**
     Updates the balance of checking account
     Subtracts the fees and adds the monthly interest.
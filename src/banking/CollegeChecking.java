@@ -1,7 +1,5 @@
 package banking;
 
-import java.text.DecimalFormat;
-
 /**
 This represents a college checking account.
 Requires an input of a college campus code representing the different campuses.
@@ -9,8 +7,8 @@ Requires an input of a college campus code representing the different campuses.
 */
 public class CollegeChecking extends Checking {
     
-    private static final double MONTHLY_FEE = 0;
-    private static final double ANNUAL_INTEREST_RATE_PERCENT = 0.25;
+    private static final long MONTHLY_FEE = 0;
+    private static final long ANNUAL_INTEREST_RATE_BASIS_POINTS = 25; //0.25%
     private static final int TEMPORARY_CAMPUS_CODE = -1;
 
 
@@ -20,9 +18,9 @@ public class CollegeChecking extends Checking {
     Creates a temporary college checking account.
     Used for withdrawing and depositing.
     @param holder the Profile of the account.
-    @param amount the amount to deposit or withdraw
+    @param amount the amount to deposit or withdraw in cents
     */
-    public CollegeChecking(Profile holder, double amount) {//used to create temporary account when withdrawing/depositing
+    public CollegeChecking(Profile holder, long amount) {//used to create temporary account when withdrawing/depositing
         super(holder, false, amount);
         campusCode = TEMPORARY_CAMPUS_CODE;
     }
@@ -31,10 +29,10 @@ public class CollegeChecking extends Checking {
     Creates a college checking account to open
     @param holder the profile of the account
     @param closed the boolean value whether it is closed or not
-    @param balance the initial balance
+    @param balance the initial balance in cents
     @param campusCode the campus code of this account.
     */
-    public CollegeChecking(Profile holder, boolean closed, double balance, int campusCode) {//includes specific data/operations to college checking account
+    public CollegeChecking(Profile holder, boolean closed, long balance, int campusCode) {//includes specific data/operations to college checking account
         super(holder, closed, balance);
         this.campusCode = campusCode;
     }
@@ -61,27 +59,19 @@ public class CollegeChecking extends Checking {
     */
     @Override
     public String toString() {
-        DecimalFormat formatObj = new DecimalFormat("###,##0.00");
-        formatObj.setGroupingUsed(true);
-        formatObj.setGroupingSize(GROUPING_SIZE);
         if(closed) {
-            return "College Checking::" + holder.toString() + "::Balance $" + formatObj.format(balance) + "::CLOSED::" + getCampusCode();
+            return "College Checking::" + holder.toString() + "::Balance $" + Money.format(balance) + "::CLOSED::" + getCampusCode();
         }
-        return "College Checking::" + holder.toString() + "::Balance $" + formatObj.format(balance) + "::" + getCampusCode();
+        return "College Checking::" + holder.toString() + "::Balance $" + Money.format(balance) + "::" + getCampusCode();
     }
     
     /**
-    Determines if two accounts are both checking and held by the same person.
-    @param obj the object to compare to.
-    @return true if accounts are same, false otherwise.
+    Takes the campus code of the college checking account being reopened.
+    @param opening the account being opened.
     */
     @Override
-    public boolean equals(Object obj) { //What is purpose of this if we're going to override it in subclass?
-        if(obj instanceof Account) {
-            Account account = (Account) obj;
-            return this.holder.equals(account.holder) && this.getType().equals(account.getType());
-        }
-        return false;
+    protected void reopened(Account opening) {
+        this.campusCode = ((CollegeChecking) opening).campusCode;
     }
     
     /**
@@ -103,21 +93,37 @@ public class CollegeChecking extends Checking {
     
     /**
     Calculates the monthly interest of college checking.
-    @return double the monthly interest of college checking accounts.
+    @return long the monthly interest of college checking accounts in cents.
     */
     @Override
-    public double monthlyInterest() {//return the monthly interest
-        double annualInterestRate = ANNUAL_INTEREST_RATE_PERCENT / TOTAL_PERCENTAGE;
-        double monthlyInterestRate = annualInterestRate / ANNUAL_DURATION;
-        return balance * monthlyInterestRate;
+    public long monthlyInterest() {//return the monthly interest
+        return interestOn(balance);
+    }
+    
+    /**
+    Calculates the monthly interest a college checking account earns on a balance.
+    @param balance the balance in cents.
+    @return long the monthly interest in cents.
+    */
+    static long interestOn(long balance) {
+        return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_BASIS_POINTS);
     }
     
     /**
     Returns the fee of all college checking accounts.
-    @return double the fee.
+    @return long the fee in cents.
     */
     @Override
-    public double fee() {//return the monthly fee
+    public long fee() {//return the monthly fee
+        return feeOn(balance);
+    }
+    
+    /**
+    Returns the monthly fee a college checking account pays on a balance.
+    @param balance the balance in cents.
+    @return long the fee in cents.
+    */
+    static long feeOn(long balance) {
         return MONTHLY_FEE;
     }
     
@@ -129,4 +135,13 @@ public class CollegeChecking extends Checking {
     public String getType() {//return the account type (class name)
         return "CollegeChecking";
     }
+    
+    /**
+    Returns the type of college checking accounts.
+    @return AccountType COLLEGE_CHECKING.
+    */
+    @Override
+    public AccountType getAccountType() {
+        return AccountType.COLLEGE_CHECKING;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,447 @@
+package banking;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+Holds all the accounts column by column instead of one object per account.
+Balances, type tags, flags and withdrawal counts live in parallel primitive arrays indexed by account id,
+the type tag of an account being the tag of its AccountType,
+so month-end and reporting scans are tight loops over contiguous memory.
+Account objects are only built as views when an account has to be printed.
+Offers the same operations as AccountDatabase through AccountStore. Not safe for use by several threads.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class ColumnarAccountDatabase implements AccountStore {
+    //Bits of the flags column
+    static final byte CLOSED = 1;
+    static final byte LOYAL = 2;
+
+    private static final int NOT_FOUND = -1;
+    private static final int INITIAL_SIZE = 4;
+    private static final int GROWTH_FACTOR = 2;
+    private static final int NO_CAMPUS_CODE = -1;
+    private static final int NON_LOYAL_CODE = 0;
+    private static final char LINE_END = '\n';
+
+    private Profile [] holders;
+    private byte [] types;
+    private byte [] flags;
+    private long [] balances;
+    private int [] withdrawals;
+    private byte [] campusCodes;
+    private int [] accruedPeriods; //last month-end period posted, yyyymm, 0 if none
+    private HashMap<AccountKey, Integer> index;
+    private int numAcct;
+
+    /**
+    Instantiates an empty ColumnarAccountDatabase.
+    */
+    public ColumnarAccountDatabase() {
+        this(INITIAL_SIZE);
+    }
+
+    /**
+    Instantiates an empty ColumnarAccountDatabase sized for a bulk load.
+    @param initialCapacity the number of accounts the database can hold before it grows.
+    */
+    public ColumnarAccountDatabase(int initialCapacity) {
+        if(initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative: " + initialCapacity);
+        }
+        int capacity = Math.max(initialCapacity, INITIAL_SIZE);
+        holders = new Profile[capacity];
+        types = new byte[capacity];
+        flags = new byte[capacity];
+        balances = new long[capacity];
+        withdrawals = new int[capacity];
+        campusCodes = new byte[capacity];
+        accruedPeriods = new int[capacity];
+        index = new HashMap<AccountKey, Integer>();
+        numAcct = 0;
+    }
+
+    /**
+    Gets the number of accounts in database.
+    @return numAcct the number of accounts.
+    */
+    @Override
+    public int sizeOfDatabase() {
+        return numAcct;
+    }
+
+    /**
+    Attempts to find the account with the given holder and type.
+    @param key the holder and type of the account.
+    @return NOT_FOUND if not found, the id of the account otherwise.
+    */
+    @Override
+    public int findAcc(AccountKey key) {
+        Integer id = index.get(key);
+        if(id == null) {
+            return NOT_FOUND;
+        }
+        return id;
+    }
+
+    /**
+    Checks whether the account with the given holder and type is closed.
+    @param key the holder and type of the account.
+    @return true if account is closed, false otherwise
+    */
+    @Override
+    public boolean isClosed(AccountKey key) {
+        int id = findAcc(key);
+        return id != NOT_FOUND && (flags[id] & CLOSED) != 0;
+    }
+
+    /**
+    Returns the holder as given: each account keeps its own holder in the holders column,
+    so there is no shared Profile to hand out.
+    @param holder a Profile of the holder.
+    @return Profile holder itself.
+    */
+    @Override
+    public Profile customer(Profile holder) {
+        return holder;
+    }
+
+    /**
+    Doubles the length of every column.
+    */
+    private void grow() {
+        int capacity = balances.length * GROWTH_FACTOR;
+        holders = Arrays.copyOf(holders, capacity);
+        types = Arrays.copyOf(types, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        withdrawals = Arrays.copyOf(withdrawals, capacity);
+        campusCodes = Arrays.copyOf(campusCodes, capacity);
+        accruedPeriods = Arrays.copyOf(accruedPeriods, capacity);
+    }
+
+    /**
+    Opens a given account to the database, or reopens it if it is closed.
+    A holder can own a Checking or a College Checking account, open or closed, but not both.
+    The account's state is copied into the columns.
+    @param account the Account to open.
+    @return true if account is opened, false if it is open already or the holder has the other checking account.
+    */
+    @Override
+    public boolean open(Account account) {
+        AccountType type = account.getAccountType();
+        AccountKey key = AccountKey.of(account);
+        AccountKey rival = key.rival();
+        if(rival != null && index.containsKey(rival)) {
+            return false;
+        }
+        Integer found = index.get(key);
+        if(found != null) {
+            int id = found;
+            if((flags[id] & CLOSED) == 0) {
+                return false;
+            }
+            flags[id] &= ~CLOSED;
+            balances[id] = account.balance;
+            if(type == AccountType.COLLEGE_CHECKING) {
+                campusCodes[id] = (byte) ((CollegeChecking) account).getCampusCd();
+            } else if(type == AccountType.SAVINGS) {
+                setLoyal(id, ((Savings) account).loyal);
+            } else if(type == AccountType.MONEY_MARKET && account.balance >= MoneyMarket.LOYAL_THRESHOLD) {
+                setLoyal(id, true);
+            }
+            return true;
+        }
+        if(numAcct == balances.length) {
+            grow();
+        }
+        int id = numAcct;
+        holders[id] = account.holder;
+        types[id] = type.tag();
+        flags[id] = account.closed ? CLOSED : 0;
+        balances[id] = account.balance;
+        withdrawals[id] = 0;
+        campusCodes[id] = NO_CAMPUS_CODE;
+        accruedPeriods[id] = account.accruedPeriod;
+        if(type == AccountType.COLLEGE_CHECKING) {
+            campusCodes[id] = (byte) ((CollegeChecking) account).getCampusCd();
+        } else if(type == AccountType.SAVINGS || type == AccountType.MONEY_MARKET) {
+            setLoyal(id, ((Savings) account).loyal);
+        }
+        if(type == AccountType.MONEY_MARKET) {
+            withdrawals[id] = (int) ((MoneyMarket) account).getNumberOfWithdrawal();
+        }
+        index.put(key, id);
+        numAcct++;
+        return true;
+    }
+
+    /**
+    Sets or clears the loyal flag of an account.
+    @param id the id of the account.
+    @param loyal the loyal status to change to.
+    */
+    private void setLoyal(int id, boolean loyal) {
+        if(loyal) {
+            flags[id] |= LOYAL;
+        } else {
+            flags[id] &= ~LOYAL;
+        }
+    }
+
+    /**
+    Closes the account with the given holder and type.
+    @param key the holder and type of the account to close.
+    @return true if account is closed, false if it is not found or closed already.
+    */
+    @Override
+    public boolean close(AccountKey key) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND || (flags[id] & CLOSED) != 0) {
+            return false;
+        }
+        flags[id] = CLOSED; //closing also drops the loyal status
+        balances[id] = 0;
+        withdrawals[id] = 0;
+        return true;
+    }
+
+    /**
+    Deposits an amount into the account with the given holder and type.
+    @param key the holder and type of the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was deposited, false if the account is not found.
+    @throws IllegalArgumentException if the balance would go over Money.MAX_AMOUNT; nothing is changed.
+    */
+    @Override
+    public boolean deposit(AccountKey key, long amount) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND) {
+            return false;
+        }
+        if(amount > Money.MAX_AMOUNT - balances[id]) {
+            throw new IllegalArgumentException("Deposit would take the balance over $" + Money.format(Money.MAX_AMOUNT) + ".");
+        }
+        balances[id] += amount;
+        return true;
+    }
+
+    /**
+    Withdraws an amount from the account with the given holder and type.
+    @param key the holder and type of the account to withdraw from.
+    @param amount the amount in cents.
+    @return true if the amount was withdrawn, false if the account is not found or the funds are insufficient.
+    */
+    @Override
+    public boolean withdraw(AccountKey key, long amount) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND || balances[id] <= amount) {
+            return false;
+        }
+        balances[id] -= amount;
+        if(AccountType.ofTag(types[id]) == AccountType.MONEY_MARKET) {
+            withdrawals[id]++;
+            if(balances[id] < MoneyMarket.LOYAL_THRESHOLD) {
+                setLoyal(id, false);
+            }
+        }
+        return true;
+    }
+
+    /**
+    Builds an Account object from the columns of one account.
+    The object is a copy: changing it does not change the database.
+    @param id the id of the account.
+    @return Account the account as an object of its class.
+    */
+    public Account accountAt(int id) {
+        Account account = view(holders[id], AccountType.ofTag(types[id]), flags[id], balances[id], withdrawals[id], campusCodes[id]);
+        account.accruedPeriod = accruedPeriods[id];
+        return account;
+    }
+
+    /**
+    Builds an Account object of the right class from the stored fields of an account.
+    @param holder the Profile of the account.
+    @param type the account type.
+    @param flags the closed and loyal bits.
+    @param balance the balance in cents.
+    @param withdrawals the number of withdrawals, used by money market accounts.
+    @param campusCode the campus code, used by college checking accounts.
+    @return Account the account as an object of its class.
+    */
+    static Account view(Profile holder, AccountType type, byte flags, long balance, int withdrawals, int campusCode) {
+        boolean closed = (flags & CLOSED) != 0;
+        boolean loyal = (flags & LOYAL) != 0;
+        switch(type) {
+        case COLLEGE_CHECKING:
+            return new CollegeChecking(holder, closed, balance, campusCode);
+        case MONEY_MARKET:
+            return new MoneyMarket(holder, closed, balance, loyal, withdrawals);
+        case SAVINGS:
+            return new Savings(holder, closed, balance, loyal ? Savings.LOYAL_TRUE : NON_LOYAL_CODE);
+        default:
+            return new Checking(holder, closed, balance);
+        }
+    }
+
+    /**
+    Returns the monthly fee of an account from its stored fields.
+    @param type the account type.
+    @param balance the balance in cents.
+    @param withdrawals the number of withdrawals, used by money market accounts.
+    @return long the monthly fee in cents.
+    */
+    static long feeOf(AccountType type, long balance, int withdrawals) {
+        switch(type) {
+        case COLLEGE_CHECKING:
+            return CollegeChecking.feeOn(balance);
+        case MONEY_MARKET:
+            return MoneyMarket.feeOn(balance, withdrawals);
+        case SAVINGS:
+            return Savings.feeOn(balance);
+        default:
+            return Checking.feeOn(balance);
+        }
+    }
+
+    /**
+    Returns the monthly interest of an account from its stored fields.
+    @param type the account type.
+    @param balance the balance in cents.
+    @param loyal whether the account is loyal, used by savings accounts.
+    @return long the monthly interest in cents.
+    */
+    static long interestOf(AccountType type, long balance, boolean loyal) {
+        switch(type) {
+        case COLLEGE_CHECKING:
+            return CollegeChecking.interestOn(balance);
+        case MONEY_MARKET:
+            return MoneyMarket.interestOn(balance);
+        case SAVINGS:
+            return Savings.interestOn(balance, loyal);
+        default:
+            return Checking.interestOn(balance);
+        }
+    }
+
+    /**
+    Computes the balance of an account after the month-end update.
+    Applies the same rules, in the same order, as each Account class's updateBalance.
+    @param type the account type.
+    @param balance the balance in cents.
+    @param loyal whether the account is loyal, used by savings accounts.
+    @param withdrawals the number of withdrawals, used by money market accounts.
+    @return long the updated balance in cents.
+    */
+    static long monthEndBalance(AccountType type, long balance, boolean loyal, int withdrawals) {
+        switch(type) {
+        case CHECKING:
+            balance -= Checking.feeOn(balance);
+            return balance + Checking.interestOn(balance);
+        case COLLEGE_CHECKING:
+            balance -= CollegeChecking.feeOn(balance);
+            return balance + CollegeChecking.interestOn(balance);
+        case SAVINGS:
+            balance += Savings.interestOn(balance, loyal);
+            return balance - Savings.feeOn(balance);
+        default:
+            balance += MoneyMarket.interestOn(balance);
+            return balance - MoneyMarket.feeOn(balance, withdrawals);
+        }
+    }
+
+    /**
+    Prints all accounts in database, one line per account.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void print(Appendable out) throws IOException {
+        for(int id = 0; id < numAcct; id++) {
+            out.append(accountAt(id).toString()).append(LINE_END);
+        }
+    }
+
+    /**
+    Prints all accounts by type, one line per account.
+    Accounts of the same type keep the order they were opened in.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printByAccountType(Appendable out) throws IOException {
+        for(AccountType type : AccountType.values()) {
+            byte tag = type.tag();
+            for(int id = 0; id < numAcct; id++) {
+                if(types[id] == tag) {
+                    out.append(accountAt(id).toString()).append(LINE_END);
+                }
+            }
+        }
+    }
+
+    /**
+    Prints all accounts with their monthly interest and fees, one line per account.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printFeeAndInterest(Appendable out) throws IOException {
+        for(int id = 0; id < numAcct; id++) {
+            AccountType type = AccountType.ofTag(types[id]);
+            out.append(accountAt(id).toString())
+                .append("::fee $").append(Money.format(feeOf(type, balances[id], withdrawals[id])))
+                .append("::monthly interest $").append(Money.format(interestOf(type, balances[id], (flags[id] & LOYAL) != 0)))
+                .append(LINE_END);
+        }
+    }
+
+    /**
+    Posts this month's fees and interest to the accounts in database.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances() {
+        return updateBalances(Date.today().toPeriod());
+    }
+
+    /**
+    Posts the fees and interest of a month-end period to every open account not yet posted for it.
+    The columns are scanned by the calling thread alone.
+    @param period the period to post, as yyyymm.
+    @param parallelism ignored.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    @Override
+    public MonthEndSummary updateBalances(int period, int parallelism) {
+        return updateBalances(period);
+    }
+
+    /**
+    Posts the fees and interest of a month-end period to every open account not yet posted for it.
+    @param period the period to post, as yyyymm.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances(int period) {
+        int posted = 0;
+        long totalBalance = 0;
+        long netChange = 0;
+        for(int id = 0; id < numAcct; id++) {
+            if((flags[id] & CLOSED) != 0 || accruedPeriods[id] >= period) {
+                continue;
+            }
+            AccountType type = AccountType.ofTag(types[id]);
+            long balance = monthEndBalance(type, balances[id], (flags[id] & LOYAL) != 0, withdrawals[id]);
+            if(type == AccountType.MONEY_MARKET && balance < MoneyMarket.LOYAL_THRESHOLD) {
+                flags[id] &= ~LOYAL;
+            }
+            netChange += balance - balances[id];
+            totalBalance += balance;
+            balances[id] = balance;
+            accruedPeriods[id] = period;
+            posted++;
+        }
+        return new MonthEndSummary(posted, totalBalance, netChange);
+    }
+}
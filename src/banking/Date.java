@@ -1,6 +1,7 @@
 package banking;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.ZoneId;
 
 /**
 This class defines a date object which holds a day, month, and year value.
@@ -13,37 +14,177 @@ public class Date implements Comparable<Date> {
 	private int day;
 	
 	//Constants
-	private static final int[] LONG_MONTHS = {1, 3, 5, 7, 8, 10, 12}; //Array of months containing 31 days
-	private static final int LONG_MONTH_DAYS = 31;
-	private static final int SHORT_MONTH_DAYS = 30;
+	private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31}; //indexed by month, February outside leap years
 	private static final int FEBRUARY = 2;
-	private static final int FEB_NON_LEAP_YEAR_DAYS = 28;
 	private static final int FEB_LEAP_YEAR_DAYS = 29;
 	private static final int MAX_NUM_OF_MONTHS = 12;
 	private static final int QUADRENNIAL = 4;
 	private static final int CENTENNIAL = 100;
 	private static final int QUARTER_CENTENNIAL = 400;
+	private static final int YEAR_SHIFT = 10000;
+	private static final int MAX_YEAR = 9999; //the largest year yyyymmdd holds, so packing never loses the year
+	private static final int MONTH_SHIFT = 100;
+	private static final int DECIMAL_BASE = 10;
+	private static final int MAX_FIELD_DIGITS = 9; //so a field always fits in an int
+	private static final int FIELDS = 3;
+	private static final char END = 0; //stands for the end of the text while parsing
+	
+	private static volatile Today today; //today's date with the time it ends, replaced together
 	
 	/**
 	Initializes the Date object with given date formatted string.
+	Reads "m/d/yyyy", where each field may have a sign, or ISO "yyyy-mm-dd", in a single pass without allocating.
 	@param date String containing the date to be initialized.
+	@throws NumberFormatException if the text is in neither format.
 	*/
 	public Date (String date) {
-	    int slashIndex = date.indexOf("/");
-		month = Integer.parseInt(date.substring(0, slashIndex));
-		int secondSlashIndex = date.indexOf("/", slashIndex + 1);
-		day = Integer.parseInt(date.substring(slashIndex + 1, secondSlashIndex));
-		year = Integer.parseInt(date.substring(secondSlashIndex + 1));
+	    int length = date.length();
+	    char separator = END;
+	    int first = 0;
+	    int second = 0;
+	    int third = 0;
+	    int field = 0;
+	    int value = 0;
+	    int digits = 0;
+	    boolean signed = false;
+	    boolean negative = false;
+	    for(int i = 0; i <= length; i++) {
+	        char c = i < length ? date.charAt(i) : END;
+	        if(c >= '0' && c <= '9') {
+	            if(++digits > MAX_FIELD_DIGITS) {
+	                throw invalidDate(date);
+	            }
+	            value = value * DECIMAL_BASE + (c - '0');
+	        } else if(digits == 0 && !signed && separator != '-' && (c == '+' || c == '-')) {
+	            signed = true; //only m/d/y fields have signs, the way Integer.parseInt read them
+	            negative = c == '-';
+	        } else if(digits > 0 && (c == END || c == '/' || c == '-')) {
+	            if(negative) {
+	                value = -value;
+	            }
+	            if(field == 0) {
+	                separator = c;
+	                first = value;
+	            } else if(field == 1) {
+	                second = value;
+	            } else {
+	                third = value;
+	            }
+	            field++;
+	            if(c == END ? field != FIELDS : (field == FIELDS || c != separator || (signed && c == '-'))) {
+	                throw invalidDate(date);
+	            }
+	            value = 0;
+	            digits = 0;
+	            signed = false;
+	            negative = false;
+	        } else {
+	            throw invalidDate(date);
+	        }
+	    }
+	    if(separator == '/') {
+	        month = first;
+	        day = second;
+	        year = third;
+	    } else {
+	        year = first;
+	        month = second;
+	        day = third;
+	    }
+	}
+	
+	/**
+	Creates the exception thrown for text that is not a date.
+	@param date the text.
+	@return NumberFormatException the exception to throw.
+	*/
+	private static NumberFormatException invalidDate(String date) {
+	    return new NumberFormatException("Not a valid date: \"" + date + "\"");
 	}
 	
 	/**
 	Initializes the Date object with today's date.
 	*/
 	public Date() {
-		Calendar todaysDate = Calendar.getInstance();
-		month = todaysDate.get(Calendar.MONTH) + 1;
-		day = todaysDate.get(Calendar.DAY_OF_MONTH);
-		year = todaysDate.get(Calendar.YEAR);
+		Date now = today();
+		month = now.month;
+		day = now.day;
+		year = now.year;
+	}
+	
+	/**
+	Initializes the Date object from its fields, such as those of a java.time.LocalDate.
+	@param year the year.
+	@param month the month, 1 to 12.
+	@param day the day of the month.
+	*/
+	Date(int year, int month, int day) {
+	    this.year = year;
+	    this.month = month;
+	    this.day = day;
+	}
+	
+	/**
+	Returns today's date in the default time zone.
+	The date is kept until midnight, so asking for it many times does not read the calendar each time.
+	@return Date today, shared; Date objects are never changed.
+	*/
+	static Date today() {
+	    long now = System.currentTimeMillis();
+	    Today cached = today;
+	    if(cached != null && now < cached.endsAt) {
+	        return cached.date;
+	    }
+	    ZoneId zone = ZoneId.systemDefault();
+	    LocalDate date = LocalDate.now(zone);
+	    cached = new Today(new Date(date.getYear(), date.getMonthValue(), date.getDayOfMonth()),
+	            date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+	    today = cached;
+	    return cached.date;
+	}
+	
+	/**
+	Today's date and the time it ends, read and replaced as one so a reader never pairs a date with another day's end.
+	*/
+	private static final class Today {
+	    private final Date date;
+	    private final long endsAt; //milliseconds since the epoch of the next midnight
+	    
+	    /**
+	    Creates the cached date.
+	    @param date today's date.
+	    @param endsAt milliseconds since the epoch of the next midnight.
+	    */
+	    Today(Date date, long endsAt) {
+	        this.date = date;
+	        this.endsAt = endsAt;
+	    }
+	}
+
+	/**
+	Initializes the Date object from a date packed as yyyymmdd.
+	@param packedDate the date packed into a single int, as returned by toPackedInt.
+	*/
+	Date(int packedDate) {
+	    year = packedDate / YEAR_SHIFT;
+	    month = packedDate / MONTH_SHIFT % MONTH_SHIFT;
+	    day = packedDate % MONTH_SHIFT;
+	}
+	
+	/**
+	Packs the calling Date object into a single int.
+	@return the date as yyyymmdd.
+	*/
+	int toPackedInt() {
+	    return year * YEAR_SHIFT + month * MONTH_SHIFT + day;
+	}
+	
+	/**
+	Returns the month-end period the calling Date object falls in.
+	@return the period as yyyymm.
+	*/
+	int toPeriod() {
+	    return year * MONTH_SHIFT + month;
 	}
 
 /*
@@ -55,49 +196,28 @@ public class Date implements Comparable<Date> {
     }
 */
  
-	/**
-	Checks to see if the calling Date object has a long month (a month containing 31 days).
-	@return true if it has long month, false otherwise.
-	*/
-	private boolean hasLongMonth() {
-	    for(int i: LONG_MONTHS) {
-	        if(i == this.month) {
-	            return true;
-	        }
-	    }
-	    return false;
-	}
-	
 	/**
 	Checks if the calling Date object is a valid date.
+	The day must be between 1 and the length of the month, looked up in a table.
+	The year must be between 0 and MAX_YEAR, so two valid dates never pack to the same int.
 	@return true if the Date object is valid, false otherwise.
 	*/
 	public boolean isValid() {
-	    if(year < 0) {
+	    if(year < 0 || year > MAX_YEAR || month < 1 || month > MAX_NUM_OF_MONTHS || day < 1) {
 	        return false;
 	    }
-		boolean isLeapYear = false;
-		if(this.year % QUADRENNIAL == 0 && this.year % CENTENNIAL != 0) {
-			isLeapYear = true;
-		} else if(this.year % QUADRENNIAL == 0 && this.year % CENTENNIAL == 0 && this.year % QUARTER_CENTENNIAL == 0) {
-			isLeapYear = true;
-		}
-		if(month <= MAX_NUM_OF_MONTHS && month > 0) {
-		    if(this.hasLongMonth()) {
-		        if(day <= LONG_MONTH_DAYS && day > 0) {
-		            return true;
-		        }
-		    } else {
-		        if(this.month != FEBRUARY && this.day <= SHORT_MONTH_DAYS) {
-		            return true;
-		        } else {
-		            if((isLeapYear && this.day <= FEB_LEAP_YEAR_DAYS) || (!isLeapYear && this.day <= FEB_NON_LEAP_YEAR_DAYS)) {
-		                return true;
-		            }
-		        }
-		    }
-		}
-		return false;
+	    if(month == FEBRUARY && isLeapYear()) {
+	        return day <= FEB_LEAP_YEAR_DAYS;
+	    }
+	    return day <= DAYS_IN_MONTH[month];
+	}
+	
+	/**
+	Checks whether the year of the calling Date object is a leap year.
+	@return true if it is a leap year, false otherwise.
+	*/
+	private boolean isLeapYear() {
+	    return (year % QUADRENNIAL == 0 && year % CENTENNIAL != 0) || year % QUARTER_CENTENNIAL == 0;
 	}
 	
 	/**
@@ -128,6 +248,28 @@ public class Date implements Comparable<Date> {
 	    }
 	}
 	
+	/**
+	Determines if the calling Date object is the same date as the parameter object.
+	@param obj the object being compared to the calling Date object.
+	@return true if both dates have the same year, month and day, false otherwise.
+	*/
+	@Override
+	public boolean equals(Object obj) {
+	    if(obj instanceof Date) {
+	        return this.compareTo((Date) obj) == 0;
+	    }
+	    return false;
+	}
+	
+	/**
+	Computes a hash code consistent with equals.
+	@return the date packed as yyyymmdd.
+	*/
+	@Override
+	public int hashCode() {
+	    return toPackedInt();
+	}
+	
 	/**
 	Returns String representation of the Date object.
 	@return String of the Date object.
@@ -135,4 +277,13 @@ public class Date implements Comparable<Date> {
 	public String toString() {
 	    return month + "/" + day + "/" + year;
 	}
+	
+	/**
+	Returns String representation of a date packed as yyyymmdd, the same as toString.
+	@param packedDate the date, as returned by toPackedInt.
+	@return String of the date.
+	*/
+	static String format(int packedDate) {
+	    return packedDate / MONTH_SHIFT % MONTH_SHIFT + "/" + packedDate % MONTH_SHIFT + "/" + packedDate / YEAR_SHIFT;
+	}
 }
\ No newline at end of file
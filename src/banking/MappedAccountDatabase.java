@@ -0,0 +1,705 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+Holds all the accounts as fixed-width records in a memory-mapped file.
+The accounts survive a restart: reopening the file makes them available again
+without reading the balances into the heap, and deposits, withdrawals and month-end
+updates are written in place in the mapped records.
+Accounts are found through an open-addressing table of record offsets kept off the heap,
+hashed and compared on the stored bytes of each record, so no record is decoded to look it up;
+holders are decoded only when an account is built.
+The table is not saved: opening the file rebuilds it with one pass over the records, hashing their bytes,
+which takes about a quarter of a second for a million accounts (MappedRestartBenchmark measures it).
+Saving it would add a second file that must be kept in step with the records through every crash.
+Offers the same operations as AccountDatabase through AccountStore. Not safe for use by several threads.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class MappedAccountDatabase implements AccountStore, Closeable {
+    private static final int MAGIC = 0x42414E4B; //"BANK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_NAME_BYTES = 32;
+    private static final int RECORD_SIZE = 96;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int GROWTH_FACTOR = 2;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE; //one mapping is at most 2GB
+
+    //Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+
+    //Record layout
+    private static final int TYPE_OFFSET = 0;
+    private static final int FLAGS_OFFSET = 1;
+    private static final int CAMPUS_OFFSET = 2;
+    private static final int WITHDRAWALS_OFFSET = 4;
+    private static final int BALANCE_OFFSET = 8;
+    private static final int DOB_OFFSET = 16;
+    private static final int FNAME_LENGTH_OFFSET = 20;
+    private static final int LNAME_LENGTH_OFFSET = 21;
+    private static final int FNAME_OFFSET = 24;
+    private static final int LNAME_OFFSET = FNAME_OFFSET + MAX_NAME_BYTES;
+    private static final int ACCRUED_OFFSET = LNAME_OFFSET + MAX_NAME_BYTES; //in the spare bytes, so older files read 0
+
+    //Index slot layout
+    private static final int SLOT_SIZE = 8;
+    private static final int SLOT_RECORD_OFFSET = 0;
+    private static final int SLOT_HASH_OFFSET = 4;
+    private static final int EMPTY_SLOT = 0; //no record starts at 0, the header does
+    private static final int SLOTS_PER_ACCOUNT = 2; //keeps the index at most half full
+    private static final int HASH_MULTIPLIER = 31;
+
+    private static final int NOT_FOUND = -1;
+    private static final int NO_CAMPUS_CODE = -1;
+    private static final char LINE_END = '\n';
+
+    private final FileChannel channel;
+    private MappedByteBuffer records;
+    private int capacity;
+    private int numAcct;
+    private ByteBuffer index; //direct, SLOT_SIZE bytes per slot: the record offset and its hash
+    private int slotMask; //number of slots minus one, the number of slots being a power of two
+
+    /**
+    Opens the account file, creating an empty one if it does not exist.
+    @param file the path of the account file.
+    @throws IOException if the file cannot be opened or is not an account file.
+    */
+    public MappedAccountDatabase(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if(channel.size() == 0) {
+            map(INITIAL_CAPACITY);
+            records.putInt(MAGIC_OFFSET, MAGIC);
+            records.putInt(VERSION_OFFSET, VERSION);
+            records.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+            records.putInt(COUNT_OFFSET, 0);
+        } else {
+            map((int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE));
+            if(records.getInt(MAGIC_OFFSET) != MAGIC || records.getInt(VERSION_OFFSET) != VERSION
+                    || records.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                channel.close();
+                throw new IOException(file + " is not an account file of version " + VERSION + ".");
+            }
+        }
+        numAcct = records.getInt(COUNT_OFFSET);
+        buildIndex(Math.max(numAcct, INITIAL_CAPACITY));
+    }
+
+    /**
+    Builds an empty index sized for a number of accounts and adds every record to it.
+    The hashes come from the stored bytes, so no record is decoded.
+    @param accounts the number of accounts the index must hold at most half full.
+    */
+    private void buildIndex(int accounts) {
+        int slots = Integer.highestOneBit(accounts * SLOTS_PER_ACCOUNT - 1) << 1;
+        index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        slotMask = slots - 1;
+        for(int id = 0; id < numAcct; id++) {
+            int offset = offsetOf(id);
+            int hash = recordHash(offset);
+            int slot = hash & slotMask;
+            while(index.getInt(slot * SLOT_SIZE + SLOT_RECORD_OFFSET) != EMPTY_SLOT) {
+                slot = (slot + 1) & slotMask;
+            }
+            putSlot(slot, offset, hash);
+        }
+    }
+
+    /**
+    Fills a slot of the index.
+    @param slot the slot.
+    @param offset the offset of the record.
+    @param hash the hash of the record's key.
+    */
+    private void putSlot(int slot, int offset, int hash) {
+        index.putInt(slot * SLOT_SIZE + SLOT_RECORD_OFFSET, offset);
+        index.putInt(slot * SLOT_SIZE + SLOT_HASH_OFFSET, hash);
+    }
+
+    /**
+    Hashes the key of an account: its type, date of birth and the bytes of its names.
+    Gives the same hash as recordHash for the record of that account.
+    @param type the type tag.
+    @param dob the packed date of birth.
+    @param fname the UTF-8 bytes of the first name.
+    @param lname the UTF-8 bytes of the last name.
+    @return int the hash.
+    */
+    private static int keyHash(byte type, int dob, byte [] fname, byte [] lname) {
+        int hash = HASH_MULTIPLIER * type + dob;
+        hash = HASH_MULTIPLIER * hash + fname.length;
+        for(byte b : fname) {
+            hash = HASH_MULTIPLIER * hash + b;
+        }
+        hash = HASH_MULTIPLIER * hash + lname.length;
+        for(byte b : lname) {
+            hash = HASH_MULTIPLIER * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+    Hashes the key stored in a record, the same way keyHash does.
+    @param offset the offset of the record.
+    @return int the hash.
+    */
+    private int recordHash(int offset) {
+        int hash = HASH_MULTIPLIER * records.get(offset + TYPE_OFFSET) + records.getInt(offset + DOB_OFFSET);
+        int length = records.get(offset + FNAME_LENGTH_OFFSET);
+        hash = HASH_MULTIPLIER * hash + length;
+        for(int i = 0; i < length; i++) {
+            hash = HASH_MULTIPLIER * hash + records.get(offset + FNAME_OFFSET + i);
+        }
+        length = records.get(offset + LNAME_LENGTH_OFFSET);
+        hash = HASH_MULTIPLIER * hash + length;
+        for(int i = 0; i < length; i++) {
+            hash = HASH_MULTIPLIER * hash + records.get(offset + LNAME_OFFSET + i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+    Checks whether a record holds the given key.
+    @param offset the offset of the record.
+    @param type the type tag.
+    @param dob the packed date of birth.
+    @param fname the UTF-8 bytes of the first name.
+    @param lname the UTF-8 bytes of the last name.
+    @return true if the record is the account with that key, false otherwise.
+    */
+    private boolean recordHasKey(int offset, byte type, int dob, byte [] fname, byte [] lname) {
+        return records.get(offset + TYPE_OFFSET) == type && records.getInt(offset + DOB_OFFSET) == dob
+                && nameEquals(offset + FNAME_OFFSET, records.get(offset + FNAME_LENGTH_OFFSET), fname)
+                && nameEquals(offset + LNAME_OFFSET, records.get(offset + LNAME_LENGTH_OFFSET), lname);
+    }
+
+    /**
+    Compares a name stored in a record with the bytes of a name.
+    @param position where the stored name starts in the file.
+    @param length the number of bytes of the stored name.
+    @param name the UTF-8 bytes to compare with.
+    @return true if they are the same bytes, false otherwise.
+    */
+    private boolean nameEquals(int position, int length, byte [] name) {
+        if(length != name.length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(records.get(position + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    Finds the slot of the index holding a key, or the empty slot where it would go.
+    @param type the type tag.
+    @param dob the packed date of birth.
+    @param fname the UTF-8 bytes of the first name.
+    @param lname the UTF-8 bytes of the last name.
+    @param hash the hash of the key, from keyHash.
+    @return int the slot.
+    */
+    private int findSlot(byte type, int dob, byte [] fname, byte [] lname, int hash) {
+        int slot = hash & slotMask;
+        while(true) {
+            int offset = index.getInt(slot * SLOT_SIZE + SLOT_RECORD_OFFSET);
+            if(offset == EMPTY_SLOT || (index.getInt(slot * SLOT_SIZE + SLOT_HASH_OFFSET) == hash
+                    && recordHasKey(offset, type, dob, fname, lname))) {
+                return slot;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+    Returns the id of the record in a slot of the index.
+    @param slot the slot.
+    @return int the id of the account, or NOT_FOUND if the slot is empty.
+    */
+    private int idInSlot(int slot) {
+        int offset = index.getInt(slot * SLOT_SIZE + SLOT_RECORD_OFFSET);
+        return offset == EMPTY_SLOT ? NOT_FOUND : (offset - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    /**
+    Maps the header and the given number of records, growing the file if needed.
+    @param newCapacity the number of records to map.
+    @throws IOException if the file cannot be mapped.
+    */
+    private void map(int newCapacity) throws IOException {
+        if(newCapacity > MAX_CAPACITY) {
+            throw new IOException("Account file cannot hold more than " + MAX_CAPACITY + " accounts.");
+        }
+        capacity = newCapacity;
+        records = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+
+    /**
+    Doubles the size of the file and maps it again.
+    @throws IOException if the file cannot be grown.
+    */
+    private void grow() throws IOException {
+        records.force();
+        map((int) Math.min((long) capacity * GROWTH_FACTOR, MAX_CAPACITY));
+    }
+
+    /**
+    Returns where a record starts in the file.
+    @param id the id of the account.
+    @return int the offset of the record.
+    */
+    private static int offsetOf(int id) {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    /**
+    Reads the holder of a record.
+    @param id the id of the account.
+    @return Profile the holder.
+    */
+    private Profile readHolder(int id) {
+        int offset = offsetOf(id);
+        String fname = readName(offset + FNAME_OFFSET, records.get(offset + FNAME_LENGTH_OFFSET));
+        String lname = readName(offset + LNAME_OFFSET, records.get(offset + LNAME_LENGTH_OFFSET));
+        return new Profile(fname, lname, records.getInt(offset + DOB_OFFSET));
+    }
+
+    /**
+    Reads a UTF-8 name stored in a record.
+    @param position where the name starts in the file.
+    @param length the number of bytes of the name.
+    @return String the name.
+    */
+    private String readName(int position, int length) {
+        byte [] bytes = new byte[length];
+        records.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+    Writes a UTF-8 name into a record.
+    @param position where the name starts in the file.
+    @param lengthPosition where the length of the name is kept.
+    @param name the name to write.
+    */
+    private void writeName(int position, int lengthPosition, byte [] name) {
+        records.put(lengthPosition, (byte) name.length);
+        records.put(position, name);
+    }
+
+    /**
+    Checks that an encoded name fits in a record.
+    Only needed for a name about to be stored; a name too long to store is simply not found when looked up.
+    @param name the name.
+    @param bytes its UTF-8 bytes.
+    */
+    private static void checkNameFits(String name, byte [] bytes) {
+        if(bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name is too long to store: " + name);
+        }
+    }
+
+    /**
+    Reads the type of a record.
+    @param id the id of the account.
+    @return AccountType the type, stored as its tag.
+    */
+    private AccountType typeAt(int id) {
+        return AccountType.ofTag(records.get(offsetOf(id) + TYPE_OFFSET));
+    }
+
+    /**
+    Reads the closed and loyal bits of a record.
+    @param id the id of the account.
+    @return byte the flags.
+    */
+    private byte flagsAt(int id) {
+        return records.get(offsetOf(id) + FLAGS_OFFSET);
+    }
+
+    /**
+    Reads the balance of a record.
+    @param id the id of the account.
+    @return long the balance in cents.
+    */
+    private long balanceAt(int id) {
+        return records.getLong(offsetOf(id) + BALANCE_OFFSET);
+    }
+
+    /**
+    Reads the number of withdrawals of a record.
+    @param id the id of the account.
+    @return int the number of withdrawals.
+    */
+    private int withdrawalsAt(int id) {
+        return records.getInt(offsetOf(id) + WITHDRAWALS_OFFSET);
+    }
+
+    /**
+    Reads the loyal bit of a record.
+    @param id the id of the account.
+    @return true if the account is loyal, false otherwise.
+    */
+    private boolean loyalAt(int id) {
+        return (flagsAt(id) & ColumnarAccountDatabase.LOYAL) != 0;
+    }
+
+    /**
+    Reads the last month-end period posted to a record.
+    @param id the id of the account.
+    @return int the period as yyyymm, 0 if none.
+    */
+    private int accruedPeriodAt(int id) {
+        return records.getInt(offsetOf(id) + ACCRUED_OFFSET);
+    }
+
+    /**
+    Writes the closed and loyal bits of a record.
+    @param id the id of the account.
+    @param flags the flags to write.
+    */
+    private void setFlags(int id, int flags) {
+        records.put(offsetOf(id) + FLAGS_OFFSET, (byte) flags);
+    }
+
+    /**
+    Writes the balance of a record.
+    @param id the id of the account.
+    @param balance the balance in cents.
+    */
+    private void setBalance(int id, long balance) {
+        records.putLong(offsetOf(id) + BALANCE_OFFSET, balance);
+    }
+
+    /**
+    Writes the number of withdrawals of a record.
+    @param id the id of the account.
+    @param withdrawals the number of withdrawals.
+    */
+    private void setWithdrawals(int id, int withdrawals) {
+        records.putInt(offsetOf(id) + WITHDRAWALS_OFFSET, withdrawals);
+    }
+
+    /**
+    Gets the number of accounts in database.
+    @return numAcct the number of accounts.
+    */
+    @Override
+    public int sizeOfDatabase() {
+        return numAcct;
+    }
+
+    /**
+    Attempts to find the account with the given holder and type.
+    @param key the holder and type of the account.
+    @return NOT_FOUND if not found, the id of the account otherwise.
+    */
+    @Override
+    public int findAcc(AccountKey key) {
+        Profile holder = key.getHolder();
+        byte [] fname = holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte [] lname = holder.getLname().getBytes(StandardCharsets.UTF_8);
+        byte type = key.getType().tag();
+        int dob = holder.getPackedDob();
+        return idInSlot(findSlot(type, dob, fname, lname, keyHash(type, dob, fname, lname)));
+    }
+
+    /**
+    Checks whether the account with the given holder and type is closed.
+    @param key the holder and type of the account.
+    @return true if account is closed, false otherwise
+    */
+    @Override
+    public boolean isClosed(AccountKey key) {
+        int id = findAcc(key);
+        return id != NOT_FOUND && (flagsAt(id) & ColumnarAccountDatabase.CLOSED) != 0;
+    }
+
+    /**
+    Returns the holder as given: each record keeps its own copy of the holder,
+    so there is no shared Profile to hand out.
+    @param holder a Profile of the holder.
+    @return Profile holder itself.
+    */
+    @Override
+    public Profile customer(Profile holder) {
+        return holder;
+    }
+
+    /**
+    Opens a given account to the database, or reopens it if it is closed.
+    A holder can own a Checking or a College Checking account, open or closed, but not both.
+    @param account the Account to open.
+    @return true if account is opened, false if it is open already or the holder has the other checking account.
+    @throws IllegalArgumentException if a name of the holder does not fit in a record.
+    @throws UncheckedIOException if the file has to grow and cannot; nothing is changed.
+    */
+    @Override
+    public boolean open(Account account) {
+        AccountType type = account.getAccountType();
+        byte [] fname = account.holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte [] lname = account.holder.getLname().getBytes(StandardCharsets.UTF_8);
+        int dob = account.holder.getPackedDob();
+        AccountKey rival = AccountKey.of(account).rival();
+        if(rival != null && findAcc(rival) != NOT_FOUND) {
+            return false;
+        }
+        int hash = keyHash(type.tag(), dob, fname, lname);
+        int slot = findSlot(type.tag(), dob, fname, lname, hash);
+        int id = idInSlot(slot);
+        if(id != NOT_FOUND) {
+            int flags = flagsAt(id);
+            if((flags & ColumnarAccountDatabase.CLOSED) == 0) {
+                return false;
+            }
+            flags &= ~ColumnarAccountDatabase.CLOSED;
+            if(type == AccountType.COLLEGE_CHECKING) {
+                records.put(offsetOf(id) + CAMPUS_OFFSET, (byte) ((CollegeChecking) account).getCampusCd());
+            } else if(type == AccountType.SAVINGS) {
+                flags = ((Savings) account).loyal ? flags | ColumnarAccountDatabase.LOYAL : flags & ~ColumnarAccountDatabase.LOYAL;
+            } else if(type == AccountType.MONEY_MARKET && account.balance >= MoneyMarket.LOYAL_THRESHOLD) {
+                flags |= ColumnarAccountDatabase.LOYAL;
+            }
+            setFlags(id, flags);
+            setBalance(id, account.balance);
+            return true;
+        }
+        checkNameFits(account.holder.getFname(), fname); //before anything is written
+        checkNameFits(account.holder.getLname(), lname);
+        if(numAcct == capacity) {
+            try {
+                grow();
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        id = numAcct;
+        int offset = offsetOf(id);
+        int flags = account.closed ? ColumnarAccountDatabase.CLOSED : 0;
+        int campusCode = NO_CAMPUS_CODE;
+        int withdrawals = 0;
+        if(type == AccountType.COLLEGE_CHECKING) {
+            campusCode = ((CollegeChecking) account).getCampusCd();
+        } else if((type == AccountType.SAVINGS || type == AccountType.MONEY_MARKET) && ((Savings) account).loyal) {
+            flags |= ColumnarAccountDatabase.LOYAL;
+        }
+        if(type == AccountType.MONEY_MARKET) {
+            withdrawals = (int) ((MoneyMarket) account).getNumberOfWithdrawal();
+        }
+        records.put(offset + TYPE_OFFSET, type.tag());
+        records.put(offset + FLAGS_OFFSET, (byte) flags);
+        records.put(offset + CAMPUS_OFFSET, (byte) campusCode);
+        records.putInt(offset + WITHDRAWALS_OFFSET, withdrawals);
+        records.putLong(offset + BALANCE_OFFSET, account.balance);
+        records.putInt(offset + DOB_OFFSET, dob);
+        records.putInt(offset + ACCRUED_OFFSET, account.accruedPeriod);
+        writeName(offset + FNAME_OFFSET, offset + FNAME_LENGTH_OFFSET, fname);
+        writeName(offset + LNAME_OFFSET, offset + LNAME_LENGTH_OFFSET, lname);
+        putSlot(slot, offset, hash);
+        numAcct++;
+        records.putInt(COUNT_OFFSET, numAcct); //the count goes last so a torn append is never visible
+        if(numAcct * SLOTS_PER_ACCOUNT > slotMask + 1) {
+            buildIndex(numAcct * GROWTH_FACTOR);
+        }
+        return true;
+    }
+
+    /**
+    Closes the account with the given holder and type.
+    @param key the holder and type of the account to close.
+    @return true if account is closed, false if it is not found or closed already.
+    */
+    @Override
+    public boolean close(AccountKey key) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND || (flagsAt(id) & ColumnarAccountDatabase.CLOSED) != 0) {
+            return false;
+        }
+        setFlags(id, ColumnarAccountDatabase.CLOSED); //closing also drops the loyal status
+        setBalance(id, 0);
+        setWithdrawals(id, 0);
+        return true;
+    }
+
+    /**
+    Deposits an amount into the account with the given holder and type.
+    @param key the holder and type of the account to deposit into.
+    @param amount the amount in cents.
+    @return true if the amount was deposited, false if the account is not found.
+    @throws IllegalArgumentException if the balance would go over Money.MAX_AMOUNT; nothing is changed.
+    */
+    @Override
+    public boolean deposit(AccountKey key, long amount) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND) {
+            return false;
+        }
+        long balance = balanceAt(id);
+        if(amount > Money.MAX_AMOUNT - balance) {
+            throw new IllegalArgumentException("Deposit would take the balance over $" + Money.format(Money.MAX_AMOUNT) + ".");
+        }
+        setBalance(id, balance + amount);
+        return true;
+    }
+
+    /**
+    Withdraws an amount from the account with the given holder and type.
+    @param key the holder and type of the account to withdraw from.
+    @param amount the amount in cents.
+    @return true if the amount was withdrawn, false if the account is not found or the funds are insufficient.
+    */
+    @Override
+    public boolean withdraw(AccountKey key, long amount) {
+        int id = findAcc(key);
+        if(id == NOT_FOUND || balanceAt(id) <= amount) {
+            return false;
+        }
+        long balance = balanceAt(id) - amount;
+        setBalance(id, balance);
+        if(typeAt(id) == AccountType.MONEY_MARKET) {
+            setWithdrawals(id, withdrawalsAt(id) + 1);
+            if(balance < MoneyMarket.LOYAL_THRESHOLD) {
+                setFlags(id, flagsAt(id) & ~ColumnarAccountDatabase.LOYAL);
+            }
+        }
+        return true;
+    }
+
+    /**
+    Builds an Account object from the record of one account.
+    The object is a copy: changing it does not change the file.
+    @param id the id of the account.
+    @return Account the account as an object of its class.
+    */
+    public Account accountAt(int id) {
+        Account account = ColumnarAccountDatabase.view(readHolder(id), typeAt(id), flagsAt(id), balanceAt(id), withdrawalsAt(id),
+                records.get(offsetOf(id) + CAMPUS_OFFSET));
+        account.accruedPeriod = accruedPeriodAt(id);
+        return account;
+    }
+
+    /**
+    Prints all accounts in database, one line per account.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void print(Appendable out) throws IOException {
+        for(int id = 0; id < numAcct; id++) {
+            out.append(accountAt(id).toString()).append(LINE_END);
+        }
+    }
+
+    /**
+    Prints all accounts by type, one line per account.
+    Accounts of the same type keep the order they were opened in.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printByAccountType(Appendable out) throws IOException {
+        for(AccountType type : AccountType.values()) {
+            for(int id = 0; id < numAcct; id++) {
+                if(typeAt(id) == type) {
+                    out.append(accountAt(id).toString()).append(LINE_END);
+                }
+            }
+        }
+    }
+
+    /**
+    Prints all accounts with their monthly interest and fees, one line per account.
+    @param out where to write the accounts, such as a StringBuilder or a Writer.
+    @throws IOException if writing to the output fails.
+    */
+    @Override
+    public void printFeeAndInterest(Appendable out) throws IOException {
+        for(int id = 0; id < numAcct; id++) {
+            AccountType type = typeAt(id);
+            out.append(accountAt(id).toString())
+                .append("::fee $").append(Money.format(ColumnarAccountDatabase.feeOf(type, balanceAt(id), withdrawalsAt(id))))
+                .append("::monthly interest $").append(Money.format(ColumnarAccountDatabase.interestOf(type, balanceAt(id), loyalAt(id))))
+                .append(LINE_END);
+        }
+    }
+
+    /**
+    Posts this month's fees and interest to the accounts in place.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances() {
+        return updateBalances(Date.today().toPeriod());
+    }
+
+    /**
+    Posts the fees and interest of a month-end period in place to every open account not yet posted for it.
+    The records are scanned by the calling thread alone.
+    @param period the period to post, as yyyymm.
+    @param parallelism ignored.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    @Override
+    public MonthEndSummary updateBalances(int period, int parallelism) {
+        return updateBalances(period);
+    }
+
+    /**
+    Posts the fees and interest of a month-end period in place to every open account not yet posted for it.
+    Each record keeps the period it was last posted for, so a run stopped part way is finished by running it again.
+    @param period the period to post, as yyyymm.
+    @return MonthEndSummary the totals of the accounts posted.
+    */
+    public MonthEndSummary updateBalances(int period) {
+        int posted = 0;
+        long totalBalance = 0;
+        long netChange = 0;
+        for(int id = 0; id < numAcct; id++) {
+            if((flagsAt(id) & ColumnarAccountDatabase.CLOSED) != 0 || accruedPeriodAt(id) >= period) {
+                continue;
+            }
+            AccountType type = typeAt(id);
+            long previousBalance = balanceAt(id);
+            long balance = ColumnarAccountDatabase.monthEndBalance(type, previousBalance, loyalAt(id), withdrawalsAt(id));
+            if(type == AccountType.MONEY_MARKET && balance < MoneyMarket.LOYAL_THRESHOLD) {
+                setFlags(id, flagsAt(id) & ~ColumnarAccountDatabase.LOYAL);
+            }
+            setBalance(id, balance);
+            records.putInt(offsetOf(id) + ACCRUED_OFFSET, period);
+            posted++;
+            netChange += balance - previousBalance;
+            totalBalance += balance;
+        }
+        return new MonthEndSummary(posted, totalBalance, netChange);
+    }
+
+    /**
+    Writes the changes made to the mapped records out to the storage device.
+    */
+    public void flush() {
+        records.force();
+    }
+
+    /**
+    Flushes the records and closes the file.
+    @throws IOException if the file cannot be closed.
+    */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,168 @@
+package banking;
+
+/**
+Helpers for amounts of money held as a whole number of cents.
+Balances are kept in a long so postings and interest are exact and reproducible.
+Rounding rules: interest is rounded to the nearest cent with halves going up,
+typed amounts are rounded to the nearest cent with halves going away from zero.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public final class Money {
+
+    public static final long CENTS_PER_DOLLAR = 100;
+    public static final long MAX_AMOUNT = 100000000000000000L; //$1,000,000,000,000,000.00, the most a teller can type or an account can hold
+    private static final long MAX_DOLLARS = MAX_AMOUNT / CENTS_PER_DOLLAR;
+    private static final int CENT_DIGITS = 2;
+    private static final int DECIMAL_BASE = 10;
+    private static final int ROUND_UP_DIGIT = 5;
+    private static final long BASIS_POINTS = 10000; //an annual rate in basis points is a rate in hundredths of a percent
+    private static final long MONTHS_PER_YEAR = 12;
+    private static final long MONTHLY_RATE_DIVISOR = BASIS_POINTS * MONTHS_PER_YEAR;
+    private static final long GROUP = 1000; //digits are grouped in threes
+    private static final int HUNDREDS = 100;
+    private static final int FORMATTED_CAPACITY = 32; //longest formatted long, sign and separators included
+
+    /**
+    Not meant to be instantiated.
+    */
+    private Money() {
+
+    }
+
+    /**
+    Parses a dollar amount such as "1500", "12.5" or "-3.257" into cents.
+    Leading and trailing whitespace is ignored. Digits past the cents are rounded, halves away from zero.
+    Amounts are limited to MAX_AMOUNT either way, well inside a long, so balances and interest built from them cannot overflow.
+    @param amount the dollar amount typed in by the user.
+    @return long the amount in cents.
+    @throws NumberFormatException if the text is not a plain decimal number or is larger than MAX_AMOUNT.
+    */
+    public static long parse(String amount) {
+        int start = 0;
+        int end = amount.length();
+        while(start < end && Character.isWhitespace(amount.charAt(start))) {
+            start++;
+        }
+        while(end > start && Character.isWhitespace(amount.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if(start < end && (amount.charAt(start) == '-' || amount.charAt(start) == '+')) {
+            negative = amount.charAt(start) == '-';
+            start++;
+        }
+        long dollars = 0;
+        long cents = 0;
+        int centDigits = 0;
+        boolean roundUp = false;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for(int i = start; i < end; i++) {
+            char c = amount.charAt(i);
+            if(c == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            if(c < '0' || c > '9') {
+                throw new NumberFormatException("Not a valid amount: \"" + amount + "\"");
+            }
+            seenDigit = true;
+            int digit = c - '0';
+            if(!seenPoint) {
+                dollars = dollars * DECIMAL_BASE + digit;
+                if(dollars > MAX_DOLLARS) {
+                    throw tooLarge(amount);
+                }
+            } else if(centDigits < CENT_DIGITS) {
+                cents = cents * DECIMAL_BASE + digit;
+                centDigits++;
+            } else if(centDigits == CENT_DIGITS) {
+                roundUp = digit >= ROUND_UP_DIGIT;
+                centDigits++;
+            }
+        }
+        if(!seenDigit) {
+            throw new NumberFormatException("Not a valid amount: \"" + amount + "\"");
+        }
+        for(; centDigits < CENT_DIGITS; centDigits++) {
+            cents = cents * DECIMAL_BASE;
+        }
+        long total = dollars * CENTS_PER_DOLLAR + cents;
+        if(roundUp) {
+            total++;
+        }
+        if(total > MAX_AMOUNT) {
+            throw tooLarge(amount);
+        }
+        return negative ? -total : total;
+    }
+
+    /**
+    Creates the exception thrown for an amount larger than MAX_AMOUNT.
+    @param amount the text.
+    @return NumberFormatException the exception to throw.
+    */
+    private static NumberFormatException tooLarge(String amount) {
+        return new NumberFormatException("Amount is too large: \"" + amount + "\"");
+    }
+
+    /**
+    Computes one month of interest on a balance.
+    The balance is split at the rate divisor so no product overflows, whatever the balance.
+    @param balance the balance in cents.
+    @param annualRateBasisPoints the annual interest rate in hundredths of a percent.
+    @return long the monthly interest in cents, rounded half up.
+    */
+    public static long monthlyInterest(long balance, long annualRateBasisPoints) {
+        long whole = Math.floorDiv(balance, MONTHLY_RATE_DIVISOR);
+        long part = Math.floorMod(balance, MONTHLY_RATE_DIVISOR);
+        return whole * annualRateBasisPoints + Math.floorDiv(part * annualRateBasisPoints + MONTHLY_RATE_DIVISOR / 2, MONTHLY_RATE_DIVISOR);
+    }
+
+    /**
+    Formats an amount as dollars with grouping and two decimals, for example "1,234.50" or "-0.05".
+    @param cents the amount in cents.
+    @return String the formatted amount.
+    */
+    public static String format(long cents) {
+        return append(new StringBuilder(FORMATTED_CAPACITY), cents).toString();
+    }
+
+    /**
+    Writes an amount as dollars with grouping and two decimals, the same way as format, without building a String.
+    Keeps no state, so any number of threads can format at once.
+    @param out where to write the amount.
+    @param cents the amount in cents.
+    @return StringBuilder out.
+    */
+    public static StringBuilder append(StringBuilder out, long cents) {
+        if(cents < 0) {
+            out.append('-');
+        }
+        long dollars = Math.abs(cents / CENTS_PER_DOLLAR); //divide before negating so Long.MIN_VALUE works
+        int remainder = (int) Math.abs(cents % CENTS_PER_DOLLAR);
+        appendGrouped(out, dollars);
+        out.append('.');
+        out.append((char) ('0' + remainder / DECIMAL_BASE));
+        out.append((char) ('0' + remainder % DECIMAL_BASE));
+        return out;
+    }
+
+    /**
+    Writes a whole number of dollars with a comma between groups of three digits.
+    @param out where to write the dollars.
+    @param dollars the dollars, not negative.
+    */
+    private static void appendGrouped(StringBuilder out, long dollars) {
+        if(dollars < GROUP) {
+            out.append(dollars);
+            return;
+        }
+        appendGrouped(out, dollars / GROUP);
+        int group = (int) (dollars % GROUP);
+        out.append(',');
+        out.append((char) ('0' + group / HUNDREDS));
+        out.append((char) ('0' + group / DECIMAL_BASE % DECIMAL_BASE));
+        out.append((char) ('0' + group % DECIMAL_BASE));
+    }
+}
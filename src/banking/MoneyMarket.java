@@ -1,7 +1,5 @@
 package banking;
 
-import java.text.DecimalFormat;
-
 /**
 This class represents Money Market class which is a type of Savings.
 Every Money Market account keeps track of number of withdrawals
@@ -9,11 +7,11 @@ Every Money Market account keeps track of number of withdrawals
 */
 public class MoneyMarket extends Savings { //includes specific data/operations to a money market account
 
-    private static final double MONTHLY_FEE = 10.0;
-    private static final double WAIVED_THRESHOLD = 2500.0;
-    private static final double LOYAL_THRESHOLD = 2500.0;
-    private static final double ANNUAL_INTEREST_RATE_NON_LOYAL = 0.008;
-    private static final double ANNUAL_INTEREST_RATE_LOYAL = 0.0095;
+    private static final long MONTHLY_FEE = 1000; //$10.00 in cents
+    private static final long WAIVED_THRESHOLD = 250000; //$2,500.00 in cents
+    static final long LOYAL_THRESHOLD = 250000; //$2,500.00 in cents
+    private static final long ANNUAL_INTEREST_RATE_NON_LOYAL = 80; //0.8% in basis points
+    private static final long ANNUAL_INTEREST_RATE_LOYAL = 95; //0.95% in basis points
     private static final int PLACE_HOLDER_VALUE = 0;
     private static final int INITIAL_WITHDRAW_VALUE = 0;
     private static final int WITHDRAW_THRESHOLD = 3;
@@ -25,9 +23,9 @@ public class MoneyMarket extends Savings { //includes specific data/operations t
     Creates a temporary money market account.
     Used for withdrawing and depositing.
     @param holder the Profile of account.
-    @param amount the amount to withdraw or deposit
+    @param amount the amount to withdraw or deposit in cents
     */
-    public MoneyMarket(Profile holder, double amount) { //used to create temporary account when withdrawing/depositing
+    public MoneyMarket(Profile holder, long amount) { //used to create temporary account when withdrawing/depositing
         super(holder, false, amount, PLACE_HOLDER_VALUE);
         this.numberOfWithdrawal = PLACE_HOLDER_VALUE;
     }
@@ -36,20 +34,35 @@ public class MoneyMarket extends Savings { //includes specific data/operations t
     Creates a money market account to open.
     @param holder the Profile of account.
     @param closed boolean indicating whether it is closed or not.
-    @param balance the initial balance.
+    @param balance the initial balance in cents.
     */
-    public MoneyMarket(Profile holder, boolean closed, double balance) {
+    public MoneyMarket(Profile holder, boolean closed, long balance) {
         super(holder, closed, balance, LOYAL_TRUE); //By default it is loyal
         numberOfWithdrawal = INITIAL_WITHDRAW_VALUE;
     }
     
+    /**
+    Creates a money market account with all of its state given.
+    Used to rebuild an account from a stored record.
+    @param holder the Profile of account.
+    @param closed boolean indicating whether it is closed or not.
+    @param balance the balance in cents.
+    @param loyal whether the account is loyal.
+    @param numberOfWithdrawal the number of withdrawals made.
+    */
+    MoneyMarket(Profile holder, boolean closed, long balance, boolean loyal, int numberOfWithdrawal) {
+        super(holder, closed, balance, PLACE_HOLDER_VALUE);
+        this.loyal = loyal;
+        this.numberOfWithdrawal = numberOfWithdrawal;
+    }
+    
     /**
     Withdraws an amount from balance. 
     Does nothing if amount is greater than balance
-    @param amount the amount to withdraw
+    @param amount the amount to withdraw in cents
     */
     @Override
-    public void withdraw(double amount) {
+    public void withdraw(long amount) {
         if((this.balance - amount) > 0) {
             this.balance = this.balance - amount;
             numberOfWithdrawal = numberOfWithdrawal + INCREMENT;
@@ -80,63 +93,79 @@ public class MoneyMarket extends Savings { //includes specific data/operations t
     */
     @Override 
     public String toString() {
-        DecimalFormat formatObj = new DecimalFormat("0.00");
-        formatObj.setGroupingUsed(true);
-        formatObj.setGroupingSize(GROUPING_SIZE);
         if(closed) {
-            return "Money Market Savings::" + holder.toString() + "::Balance $" + formatObj.format(balance) + "::CLOSED::withdrawl: " + this.numberOfWithdrawal;            
+            return "Money Market Savings::" + holder.toString() + "::Balance $" + Money.format(balance) + "::CLOSED::withdrawl: " + this.numberOfWithdrawal;            
         }
         else {
             if(loyal) {
-                return "Money Market Savings::" + holder.toString() + "::Balance $" + formatObj.format(balance) + "::Loyal::withdrawl: " + this.numberOfWithdrawal;
+                return "Money Market Savings::" + holder.toString() + "::Balance $" + Money.format(balance) + "::Loyal::withdrawl: " + this.numberOfWithdrawal;
             }
             else {
-                return "Money Market Savings::" + holder.toString() + "::Balance $" + formatObj.format(balance) + "::withdrawl: " + this.numberOfWithdrawal;
+                return "Money Market Savings::" + holder.toString() + "::Balance $" + Money.format(balance) + "::withdrawl: " + this.numberOfWithdrawal;
             }
         }
     }
     
     /**
-    Determines whether two money market accounts are equal.
-    @param obj the object to compare with.
-    @return true calling object and param object are equal, false otherwise.
+    Makes a reopened money market account loyal again if it opens above the loyal threshold.
+    Unlike a savings account, the loyal status is not taken from the account being opened.
+    @param opening the account being opened.
     */
     @Override
-    public boolean equals(Object obj) { //What is purpose of this if we're going to override it in subclass?
-        if(obj instanceof Account) {
-            Account account = (Account) obj;
-            return this.holder.equals(account.holder) && this.getType().equals(account.getType());
+    protected void reopened(Account opening) {
+        if(opening.balance >= LOYAL_THRESHOLD) {
+            this.loyal = true;
         }
-        return false;
+    }
+    
+    /**
+    Drops the loyal status and the withdrawal count of a money market account being closed.
+    */
+    @Override
+    protected void reset() {
+        super.reset();
+        resetNumberOfWithdrawal();
     }
     
     /**
     Returns monthly interest for this account.
-    @return double the monthly interest.
+    @return long the monthly interest in cents.
     */
     @Override
-    public double monthlyInterest() { //return the monthly interest   POSSIBLY REDUNDANT
-        double annualInterestRate;
-        double monthlyInterestRate;
+    public long monthlyInterest() { //return the monthly interest   POSSIBLY REDUNDANT
+        return interestOn(this.balance);
+    }
+    
+    /**
+    Calculates the monthly interest a money market account earns on a balance.
+    @param balance the balance in cents.
+    @return long the monthly interest in cents.
+    */
+    static long interestOn(long balance) {
         if(balance < LOYAL_THRESHOLD) { //no longer loyal            
-            annualInterestRate = ANNUAL_INTEREST_RATE_NON_LOYAL;
-            monthlyInterestRate = annualInterestRate / ANNUAL_DURATION;           
-        }
-        else {
-            annualInterestRate = ANNUAL_INTEREST_RATE_LOYAL;
-            monthlyInterestRate = annualInterestRate / ANNUAL_DURATION;            
+            return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_NON_LOYAL);
         }
-        return this.balance * monthlyInterestRate;
+        return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_LOYAL);
     }
     
     /**
     Returns the fee for this account.
-    @return double the monthly fee.
+    @return long the monthly fee in cents.
     */
     @Override
-    public double fee() {//return the monthly fee
-        if(this.balance >= WAIVED_THRESHOLD) {
-            if(this.numberOfWithdrawal <= WITHDRAW_THRESHOLD) {
+    public long fee() {//return the monthly fee
+        return feeOn(this.balance, this.numberOfWithdrawal);
+    }
+    
+    /**
+    Returns the monthly fee a money market account pays.
+    @param balance the balance in cents.
+    @param numberOfWithdrawal the number of withdrawals made.
+    @return long the monthly fee in cents.
+    */
+    static long feeOn(long balance, int numberOfWithdrawal) {
+        if(balance >= WAIVED_THRESHOLD) {
+            if(numberOfWithdrawal <= WITHDRAW_THRESHOLD) {
                 return WAIVED_FEE;
             }
         }
@@ -152,6 +181,15 @@ public class MoneyMarket extends Savings { //includes specific data/operations t
         return "MoneyMarket";
     }
     
+    /**
+    Returns the type of account.
+    @return AccountType MONEY_MARKET.
+    */
+    @Override
+    public AccountType getAccountType() {
+        return AccountType.MONEY_MARKET;
+    }
+    
     /**
     Updates the balance with subtracted fees and added interest.
     Checks whether balance falls below the loyal threshold.
@@ -0,0 +1,67 @@
+package banking;
+
+/**
+Totals of a month-end run over the accounts in the database.
+Totals are exact sums of cents, so the same book always gives the same summary
+no matter how many threads did the work.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class MonthEndSummary {
+    private final int numberOfAccounts;
+    private final long totalBalance;
+    private final long netChange;
+    
+    /**
+    Creates a summary.
+    @param numberOfAccounts the number of accounts updated.
+    @param totalBalance the sum of the updated balances in cents.
+    @param netChange the sum of interest added minus fees charged in cents.
+    */
+    public MonthEndSummary(int numberOfAccounts, long totalBalance, long netChange) {
+        this.numberOfAccounts = numberOfAccounts;
+        this.totalBalance = totalBalance;
+        this.netChange = netChange;
+    }
+    
+    /**
+    Adds the totals of another part of the book to this one.
+    @param other the summary of the accounts that come after this summary's accounts.
+    @return a summary covering both parts.
+    */
+    public MonthEndSummary combine(MonthEndSummary other) {
+        return new MonthEndSummary(numberOfAccounts + other.numberOfAccounts, totalBalance + other.totalBalance, netChange + other.netChange);
+    }
+    
+    /**
+    Returns the number of accounts updated.
+    @return int the number of accounts.
+    */
+    public int getNumberOfAccounts() {
+        return numberOfAccounts;
+    }
+    
+    /**
+    Returns the sum of the updated balances.
+    @return long the total balance in cents.
+    */
+    public long getTotalBalance() {
+        return totalBalance;
+    }
+    
+    /**
+    Returns the interest added minus the fees charged over all accounts.
+    @return long the net change of the balances in cents.
+    */
+    public long getNetChange() {
+        return netChange;
+    }
+    
+    /**
+    Returns string representation of the summary.
+    @return String the string representation of this summary.
+    */
+    @Override
+    public String toString() {
+        return "Accounts updated: " + numberOfAccounts + "::Total balance $" + Money.format(totalBalance) + "::Net change $" + Money.format(netChange);
+    }
+}
@@ -3,12 +3,15 @@ package banking;
 /**
 Describe the person holding an account
 Includes first last name and date of birth
+The date of birth is kept packed into an int, and an AccountDatabase shares one Profile
+among all the accounts of a holder, so equal holders are usually the same object.
 @author Dharma Wijesinghe, Min Sun You
 */
 public class Profile {
-    private String fname;
-    private String lname;
-    private Date dob;
+    private final String fname;
+    private final String lname;
+    private final int dob; //packed as yyyymmdd
+    private static final int HASH_MULTIPLIER = 31;
     
     /**
      * Constructor for Profile class.
@@ -18,9 +21,51 @@ public class Profile {
      * @param dob
      */
     public Profile(String fname, String lname, Date dob) {
+        this(fname, lname, dob.toPackedInt());
+    }
+    
+    /**
+     * Creates a Profile from a date of birth already packed as yyyymmdd.
+     * @param fname the first name.
+     * @param lname the last name.
+     * @param packedDob the date of birth, as returned by Date.toPackedInt.
+     */
+    Profile(String fname, String lname, int packedDob) {
         this.fname = fname;
         this.lname = lname;
-        this.dob = dob;
+        this.dob = packedDob;
+    }
+    
+    /**
+     * Returns the first name of the holder.
+     * @return the first name.
+     */
+    public String getFname() {
+        return fname;
+    }
+    
+    /**
+     * Returns the last name of the holder.
+     * @return the last name.
+     */
+    public String getLname() {
+        return lname;
+    }
+    
+    /**
+     * Returns the date of birth of the holder.
+     * @return the date of birth.
+     */
+    public Date getDob() {
+        return new Date(dob);
+    }
+    
+    /**
+     * Returns the date of birth of the holder packed as yyyymmdd, without building a Date.
+     * @return the packed date of birth.
+     */
+    int getPackedDob() {
+        return dob;
     }
     
     /**
@@ -30,20 +75,34 @@ public class Profile {
      */
     @Override
     public boolean equals(Object obj) {
+        if(this == obj) {
+            return true;
+        }
         if(obj instanceof Profile) {
             Profile profile = (Profile) obj;
-            return (fname.equals(profile.fname) && lname.equals(profile.lname)) && (dob.compareTo(profile.dob)) == 0;
+            return dob == profile.dob && fname.equals(profile.fname) && lname.equals(profile.lname);
         }
         return false;
     }
     
+    /**
+     * Computes a hash code consistent with equals, so profiles can be used as hash keys.
+     * @return the hash code of this Profile.
+     */
+    @Override
+    public int hashCode() {
+        int hash = fname.hashCode();
+        hash = HASH_MULTIPLIER * hash + lname.hashCode();
+        return HASH_MULTIPLIER * hash + dob; //a Date hashes to its packed value
+    }
+    
     /**
      * Converts the calling Profile object to a string.
      * @return a string representation of the Profile object.
      */
     @Override
     public String toString() {    
-        return this.fname + " " + this.lname + " " + dob.toString();
+        return this.fname + " " + this.lname + " " + Date.format(dob);
 
     }
 }
\ No newline at end of file
@@ -7,12 +7,10 @@ A savings account can be loyal or nonloyal.
 */
 public class Savings extends Account { //includes specific data/operations to savings account
     
-    private static final double MONTHLY_FEE = 6.0;
-    private static final double WAIVED_THRESHOLD = 300.0;
-    private static final double ANNUAL_INTEREST_RATE_NON_LOYAL = 0.3;
-    private static final double ANNUAL_INTEREST_RATE_LOYAL = 0.45;
-    private static final double TOTAL_PERCENTAGE = 100;
-    public static final double ANNUAL_DURATION = 12;
+    private static final long MONTHLY_FEE = 600; //$6.00 in cents
+    private static final long WAIVED_THRESHOLD = 30000; //$300.00 in cents
+    private static final long ANNUAL_INTEREST_RATE_NON_LOYAL = 30; //0.3% in basis points
+    private static final long ANNUAL_INTEREST_RATE_LOYAL = 45; //0.45% in basis points
     public static final int WAIVED_FEE = 0;
     public static final int LOYAL_TRUE = 1;
 
@@ -21,9 +19,9 @@ public class Savings extends Account { //includes specific data/operations to sa
     /**
     Creates a temporary savings account for withdrawing or depositing.
     @param holder the profile of this account.
-    @param amount the amount to withdraw or deposit.
+    @param amount the amount to withdraw or deposit in cents.
     */
-    public Savings(Profile holder, double amount) { //used to create temporary account when withdrawing/depositing
+    public Savings(Profile holder, long amount) { //used to create temporary account when withdrawing/depositing
         super(holder, false, amount);
         this.loyal = false;
     }
@@ -32,10 +30,10 @@ public class Savings extends Account { //includes specific data/operations to sa
     Creates a savings account to open.
     @param holder the profile of the account.
     @param closed boolean value whether it is closed or not
-    @param balance the intial balance
+    @param balance the intial balance in cents
     @param loyalCode value representing if it is loyal or not
     */
-    public Savings(Profile holder, boolean closed, double balance, int loyalCode) {
+    public Savings(Profile holder, boolean closed, long balance, int loyalCode) {
         super(holder, closed, balance);
         if(loyalCode == LOYAL_TRUE) {
             this.loyal = true;
@@ -71,17 +69,20 @@ public class Savings extends Account { //includes specific data/operations to sa
     }
     
     /**
-    Determines whether two savings accounts are equal.
-    @param obj the object to compare to.
-    @return true if two accounts are both savings and owned by same person, false otherwise.
+    Takes the loyal status of the savings account being reopened.
+    @param opening the account being opened.
     */
     @Override
-    public boolean equals(Object obj) { //What is purpose of this if we're going to override it in subclass?
-        if(obj instanceof Account) {
-            Account account = (Account) obj;
-            return super.equals(account) && this.getType().equals(account.getType());
-        } 
-        return false;
+    protected void reopened(Account opening) {
+        this.loyal = ((Savings) opening).loyal;
+    }
+    
+    /**
+    Drops the loyal status of a savings account being closed.
+    */
+    @Override
+    protected void reset() {
+        this.loyal = false;
     }
     
     /**
@@ -94,25 +95,39 @@ public class Savings extends Account { //includes specific data/operations to sa
     
     /**
     Calculates the monthly interest of savings accounts.
-    @return double the monthly interest.
+    @return long the monthly interest in cents.
     */
-    public double monthlyInterest() { //return the monthly interest
-        double annualInterestRate;
+    public long monthlyInterest() { //return the monthly interest
+        return interestOn(balance, loyal);
+    }
+    
+    /**
+    Calculates the monthly interest a savings account earns on a balance.
+    @param balance the balance in cents.
+    @param loyal whether the account is loyal.
+    @return long the monthly interest in cents.
+    */
+    static long interestOn(long balance, boolean loyal) {
         if(loyal) {
-            annualInterestRate = ANNUAL_INTEREST_RATE_LOYAL / TOTAL_PERCENTAGE; 
+            return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_LOYAL);
         }
-        else {
-            annualInterestRate = ANNUAL_INTEREST_RATE_NON_LOYAL / TOTAL_PERCENTAGE;
-        }
-        double monthlyInterestRate = annualInterestRate / ANNUAL_DURATION;
-        return balance * monthlyInterestRate;
+        return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE_NON_LOYAL);
     }
     
     /**   
     Returns the monthly fee of savings accounts.
-    @return double the monthly fee.
+    @return long the monthly fee in cents.
+    */
+    public long fee() { //return the monthly fee
+        return feeOn(balance);
+    }
+    
+    /**
+    Returns the monthly fee a savings account pays on a balance.
+    @param balance the balance in cents.
+    @return long the monthly fee in cents.
     */
-    public double fee() { //return the monthly fee
+    static long feeOn(long balance) {
         if(balance >= WAIVED_THRESHOLD) {
             return WAIVED_FEE;
         }
@@ -127,6 +142,14 @@ public class Savings extends Account { //includes specific data/operations to sa
         return "Savings";
     }
     
+    /**
+    Returns the type of this account.
+    @return AccountType SAVINGS.
+    */
+    public AccountType getAccountType() {
+        return AccountType.SAVINGS;
+    }
+    
     /**
     Updates the balance.
     Adds monthly interest and subtracts the monthly fee.
@@ -0,0 +1,532 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+Append-only binary journal of every change made to an AccountDatabase.
+Each open, close, deposit, withdrawal, transfer and month-end run is appended as one compact record,
+and the change is only acknowledged once its record is on disk.
+Records waiting at the same time are written and synced together (group commit),
+so concurrent tellers share one fsync instead of paying one each.
+On startup the journal is replayed to rebuild the database.
+Once a snapshot is on disk, the records it covers are dropped from the front of the journal.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class TransactionJournal implements Closeable {
+    //Record operations
+    static final byte OPEN = 1;
+    static final byte CLOSE = 2;
+    static final byte DEPOSIT = 3;
+    static final byte WITHDRAW = 4;
+    static final byte MONTH_END = 5;
+    static final byte TRANSFER = 6;
+
+    private static final int MAGIC = 0x4A524E4C; //"JRNL"
+    private static final int VERSION = 2; //2 added the period and range to month-end records
+    private static final int HEADER_SIZE = 16;
+    private static final int BASE_SEQUENCE_OFFSET = 8;
+    private static final int FRAME_OVERHEAD = Integer.BYTES * 2; //length before the record, checksum after it
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_SIZE = 2048; //holds a transfer between holders whose names are AccountDatabase.MAX_NAME_BYTES long
+    private static final int NO_CAMPUS_CODE = -1;
+    private static final int FIXED_RECORD_SIZE = 20; //operation, type, flags, campus code, amount, date of birth, two name lengths
+    private static final int FIXED_TARGET_SIZE = 11; //type, flags, campus code, date of birth, two name lengths of a transfer's target
+    private static final int MONTH_END_SIZE = 13; //operation, period, first and last index
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path file;
+    private FileChannel channel;
+    private ByteBuffer pending; //records appended but not yet written
+    private ByteBuffer writing; //records being written by the current leader
+    private final CRC32 checksum = new CRC32();
+    private long baseSequence; //number of records dropped from the front of the journal
+    private long appendedSequence; //number of records appended so far
+    private long durableSequence; //number of records known to be on disk
+    private boolean flushing;
+    private IOException failure; //the first write that failed; from then on the journal takes no more records
+
+    /**
+    Opens the journal file, creating an empty one if it does not exist.
+    Call replay before appending to an existing journal, so a record cut short by a crash is dropped first.
+    @param file the path of the journal file.
+    @throws IOException if the file cannot be opened or is not a journal.
+    */
+    public TransactionJournal(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if(channel.size() == 0) {
+            header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } else {
+            channel.read(header, 0);
+            header.flip();
+            if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                channel.close();
+                throw new IOException(file + " is not a journal of version " + VERSION + ".");
+            }
+            baseSequence = header.getLong(BASE_SEQUENCE_OFFSET);
+        }
+        appendedSequence = baseSequence;
+        durableSequence = baseSequence;
+        pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        writing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        channel.position(channel.size());
+    }
+
+    /**
+    Reads every complete record and applies it to the database.
+    A record cut short by a crash is dropped, and the journal continues after the last complete one.
+    The database should not have a journal set while replaying.
+    @param database the database to rebuild.
+    @return long the number of records applied.
+    @throws IOException if the journal cannot be read.
+    */
+    public long replay(AccountDatabase database) throws IOException {
+        return replay(database, baseSequence);
+    }
+
+    /**
+    Reads every complete record and applies the ones after a snapshot to the database.
+    A record cut short by a crash is dropped, and the journal continues after the last complete one.
+    The database should not have a journal set while replaying.
+    @param database the database to rebuild, already restored from the snapshot.
+    @param snapshotSequence the sequence number the snapshot was taken at, 0 without a snapshot.
+    @return long the number of records applied.
+    @throws IOException if the journal cannot be read or records between the snapshot and the journal are missing.
+    */
+    public synchronized long replay(AccountDatabase database, long snapshotSequence) throws IOException {
+        if(snapshotSequence < baseSequence) {
+            throw new IOException(file + " starts after record " + baseSequence + " but the snapshot ends at record " + snapshotSequence + ".");
+        }
+        long position = HEADER_SIZE;
+        long sequence = baseSequence;
+        long applied = 0;
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES);
+        ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        while(true) {
+            frame.clear();
+            if(channel.read(frame, position) < Integer.BYTES) {
+                break;
+            }
+            int length = frame.getInt(0);
+            if(length <= 0 || length > MAX_RECORD_SIZE - Integer.BYTES) {
+                break;
+            }
+            record.clear().limit(length + Integer.BYTES);
+            if(channel.read(record, position + Integer.BYTES) < length + Integer.BYTES) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(record.array(), 0, length);
+            if((int) checksum.getValue() != record.getInt(length)) {
+                break;
+            }
+            record.limit(length).position(0);
+            sequence++;
+            if(sequence > snapshotSequence) {
+                apply(record, database);
+                applied++;
+            }
+            position += Integer.BYTES + length + Integer.BYTES;
+        }
+        channel.truncate(position);
+        channel.position(position);
+        appendedSequence = sequence;
+        durableSequence = sequence;
+        return applied;
+    }
+
+    /**
+    Applies one decoded record to the database.
+    @param record the record, positioned at its operation byte.
+    @param database the database to change.
+    */
+    private static void apply(ByteBuffer record, AccountDatabase database) {
+        byte operation = record.get();
+        if(operation == MONTH_END) {
+            database.updateBalances(record.getInt(), record.getInt(), record.getInt(), 1);
+            return;
+        }
+        byte type = record.get();
+        byte flags = record.get();
+        int campusCode = record.get();
+        long amount = record.getLong();
+        Profile holder = getHolder(record);
+        if(operation == OPEN) {
+            database.open(ColumnarAccountDatabase.view(holder, AccountType.ofTag(type), flags, amount, 0, campusCode));
+            return;
+        }
+        AccountKey key = new AccountKey(holder, AccountType.ofTag(type));
+        switch(operation) {
+        case CLOSE:
+            database.close(key);
+            break;
+        case DEPOSIT:
+            database.deposit(key, amount);
+            break;
+        case WITHDRAW:
+            database.withdraw(key, amount);
+            break;
+        case TRANSFER:
+            byte targetType = record.get();
+            record.get(); //the target's flags and campus code are not needed to find it
+            record.get();
+            database.transfer(key, new AccountKey(getHolder(record), AccountType.ofTag(targetType)), amount);
+            break;
+        default:
+            throw new IllegalStateException("Unknown journal operation " + operation);
+        }
+    }
+
+    /**
+    Reads the holder of an account from a record.
+    @param record the record, positioned at the date of birth.
+    @return Profile the holder.
+    */
+    private static Profile getHolder(ByteBuffer record) {
+        int dob = record.getInt();
+        String fname = getName(record);
+        String lname = getName(record);
+        return new Profile(fname, lname, dob);
+    }
+
+    /**
+    Reads a length-prefixed UTF-8 name from a record.
+    @param record the record, positioned at the name.
+    @return String the name.
+    */
+    private static String getName(ByteBuffer record) {
+        int length = Short.toUnsignedInt(record.getShort()); //unsigned, so names up to AccountDatabase.MAX_NAME_BYTES read back
+        String name = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return name;
+    }
+
+    /**
+    Appends an account operation and waits until it is on disk.
+    @param operation OPEN, CLOSE, DEPOSIT or WITHDRAW.
+    @param account the account.
+    @param amount the opening balance, deposit or withdrawal in cents.
+    */
+    void record(byte operation, Account account, long amount) {
+        awaitDurable(append(operation, account, amount));
+    }
+
+    /**
+    Appends a transfer between two accounts as one record and waits until it is on disk.
+    @param from the account withdrawn from.
+    @param to the account deposited into.
+    @param amount the amount moved in cents.
+    */
+    void recordTransfer(Account from, Account to, long amount) {
+        awaitDurable(appendTransfer(from, to, amount));
+    }
+
+    /**
+    Appends a month-end run and waits until it is on disk.
+    @param period the period posted, as yyyymm.
+    @param from the first index posted.
+    @param to one past the last index posted.
+    */
+    void recordMonthEnd(int period, int from, int to) {
+        long sequence;
+        synchronized(this) {
+            checkWritable();
+            int start = beginRecord(MONTH_END_SIZE);
+            pending.put(MONTH_END).putInt(period).putInt(from).putInt(to);
+            sequence = endRecord(start);
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+    Appends an account operation to the pending records without waiting for the disk.
+    @param operation OPEN, CLOSE, DEPOSIT or WITHDRAW.
+    @param account the account.
+    @param amount the opening balance, deposit or withdrawal in cents.
+    @return long the sequence number to pass to awaitDurable.
+    */
+    synchronized long append(byte operation, Account account, long amount) {
+        checkWritable();
+        byte [] fname = account.holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte [] lname = account.holder.getLname().getBytes(StandardCharsets.UTF_8);
+        int size = FIXED_RECORD_SIZE + fname.length + lname.length;
+        if(size > MAX_RECORD_SIZE - Integer.BYTES) {
+            throw new IllegalArgumentException("Names are too long to journal: " + account.holder);
+        }
+        int start = beginRecord(size);
+        pending.put(operation);
+        putType(account);
+        pending.putLong(amount);
+        putHolder(account, fname, lname);
+        return endRecord(start);
+    }
+
+    /**
+    Appends a transfer to the pending records without waiting for the disk.
+    The record holds the source account as a withdrawal does, followed by the target account without an amount.
+    @param from the account withdrawn from.
+    @param to the account deposited into.
+    @param amount the amount moved in cents.
+    @return long the sequence number to pass to awaitDurable.
+    */
+    synchronized long appendTransfer(Account from, Account to, long amount) {
+        checkWritable();
+        byte [] fromFname = from.holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte [] fromLname = from.holder.getLname().getBytes(StandardCharsets.UTF_8);
+        byte [] toFname = to.holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte [] toLname = to.holder.getLname().getBytes(StandardCharsets.UTF_8);
+        int size = FIXED_RECORD_SIZE + fromFname.length + fromLname.length + FIXED_TARGET_SIZE + toFname.length + toLname.length;
+        if(size > MAX_RECORD_SIZE - Integer.BYTES) {
+            throw new IllegalArgumentException("Names are too long to journal: " + from.holder + ", " + to.holder);
+        }
+        int start = beginRecord(size);
+        pending.put(TRANSFER);
+        putType(from);
+        pending.putLong(amount);
+        putHolder(from, fromFname, fromLname);
+        putType(to);
+        putHolder(to, toFname, toLname);
+        return endRecord(start);
+    }
+
+    /**
+    Refuses new records once a write has failed, since it is unknown how much of that write reached the disk.
+    Recovering by replaying the journal on the next start brings the database back in line with the file.
+    @throws UncheckedIOException if a write has failed.
+    */
+    private void checkWritable() {
+        if(failure != null) {
+            throw new UncheckedIOException("The journal could not be written earlier, restart to recover.", failure);
+        }
+    }
+
+    /**
+    Writes an account's type tag, flags and campus code to the pending records.
+    @param account the account.
+    */
+    private void putType(Account account) {
+        byte type = account.getAccountType().tag();
+        byte flags = account.closed ? ColumnarAccountDatabase.CLOSED : 0;
+        int campusCode = NO_CAMPUS_CODE;
+        if(account instanceof Savings && ((Savings) account).loyal) {
+            flags |= ColumnarAccountDatabase.LOYAL;
+        }
+        if(account instanceof CollegeChecking) {
+            campusCode = ((CollegeChecking) account).getCampusCd();
+        }
+        pending.put(type).put(flags).put((byte) campusCode);
+    }
+
+    /**
+    Writes an account holder's date of birth and names to the pending records.
+    @param account the account.
+    @param fname the holder's first name in UTF-8.
+    @param lname the holder's last name in UTF-8.
+    */
+    private void putHolder(Account account, byte [] fname, byte [] lname) {
+        pending.putInt(account.holder.getPackedDob());
+        pending.putShort((short) fname.length).put(fname);
+        pending.putShort((short) lname.length).put(lname);
+    }
+
+    /**
+    Makes room for a record and leaves space for its length.
+    @param maxSize the largest size the record can have.
+    @return int where the record's frame starts in the pending buffer.
+    */
+    private int beginRecord(int maxSize) {
+        if(pending.remaining() < maxSize + FRAME_OVERHEAD) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + maxSize + FRAME_OVERHEAD));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.putInt(0);
+        return start;
+    }
+
+    /**
+    Fills in the length and checksum of the record just written to the pending buffer.
+    @param start where the record's frame starts in the pending buffer.
+    @return long the sequence number of the record.
+    */
+    private long endRecord(int start) {
+        int length = pending.position() - start - Integer.BYTES;
+        pending.putInt(start, length);
+        checksum.reset();
+        checksum.update(pending.array(), start + Integer.BYTES, length);
+        pending.putInt((int) checksum.getValue());
+        return ++appendedSequence;
+    }
+
+    /**
+    Waits until the record with the given sequence number is on disk.
+    The first waiting thread becomes the leader: it takes every pending record,
+    writes and syncs them without holding the lock, and wakes the others.
+    The wait is not cut short by an interrupt, which is kept for the caller, so a record is never
+    left pending once its change has been given up.
+    @param sequence the sequence number returned by append.
+    @throws UncheckedIOException if the record could not be written.
+    */
+    void awaitDurable(long sequence) {
+        boolean interrupted = false;
+        try {
+            while(true) {
+                ByteBuffer batch;
+                long batchSequence;
+                synchronized(this) {
+                    while(flushing && durableSequence < sequence) {
+                        try {
+                            wait();
+                        } catch(InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if(durableSequence >= sequence) {
+                        return;
+                    }
+                    checkWritable();
+                    flushing = true;
+                    batch = pending;
+                    pending = writing;
+                    writing = batch;
+                    batchSequence = appendedSequence;
+                }
+                IOException writeFailure = null;
+                try {
+                    batch.flip();
+                    while(batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                    channel.force(false);
+                } catch(IOException e) {
+                    writeFailure = e;
+                } finally {
+                    synchronized(this) {
+                        batch.clear();
+                        flushing = false;
+                        if(writeFailure == null) {
+                            durableSequence = batchSequence;
+                        } else {
+                            failure = writeFailure;
+                        }
+                        notifyAll();
+                    }
+                }
+                if(writeFailure != null) {
+                    throw new UncheckedIOException("Could not write the journal.", writeFailure);
+                }
+            }
+        } finally {
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+    Returns the sequence number of the last record appended, on disk or not.
+    @return long the sequence number.
+    */
+    synchronized long appendedSequence() {
+        return appendedSequence;
+    }
+
+    /**
+    Drops the records up to a sequence number, once a snapshot covering them is on disk.
+    The remaining records are copied to a new file that atomically replaces the journal.
+    Appends carry on meanwhile; they are written to the new file once it is in place.
+    @param sequence the sequence number of the last record to drop.
+    @throws IOException if the new journal cannot be written.
+    */
+    void truncate(long sequence) throws IOException {
+        synchronized(this) {
+            while(flushing) {
+                try {
+                    wait();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal.", e);
+                }
+            }
+            if(sequence <= baseSequence || sequence > durableSequence) {
+                return;
+            }
+            flushing = true; //holds off other writers until the new file is in place
+        }
+        FileChannel compacted = null;
+        try {
+            long start = HEADER_SIZE;
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES);
+            for(long dropped = baseSequence; dropped < sequence; dropped++) {
+                frame.clear();
+                channel.read(frame, start);
+                start += Integer.BYTES + frame.getInt(0) + Integer.BYTES;
+            }
+            Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            compacted = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sequence).flip();
+            compacted.write(header, 0);
+            long end = channel.size();
+            for(long copied = 0; copied < end - start; ) {
+                copied += channel.transferTo(start + copied, end - start - copied, compacted.position(HEADER_SIZE + copied));
+            }
+            compacted.force(true);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            compacted.position(compacted.size());
+            FileChannel old = channel;
+            synchronized(this) {
+                channel = compacted;
+                baseSequence = sequence;
+            }
+            compacted = null;
+            old.close();
+        } finally {
+            if(compacted != null) {
+                compacted.close();
+            }
+            synchronized(this) {
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+    Returns the sequence number of the last record on disk.
+    Sequence numbers keep counting across journal truncations.
+    @return long the sequence number.
+    */
+    public synchronized long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+    Writes any pending records and closes the file.
+    @throws IOException if the file cannot be closed.
+    */
+    @Override
+    public void close() throws IOException {
+        long sequence;
+        synchronized(this) {
+            sequence = appendedSequence;
+        }
+        awaitDurable(sequence);
+        channel.close();
+    }
+}
@@ -0,0 +1,155 @@
+package banking;
+
+/**
+An account operation asked of the TransactionService, independent of where it was typed in.
+Names are taken as typed; the service capitalizes and validates them.
+The account type is parsed where the request is typed in, so the service never looks at its name.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public final class TransactionRequest {
+
+    /**
+    The kinds of account operation.
+    */
+    public enum Operation {
+        OPEN, CLOSE, DEPOSIT, WITHDRAW
+    }
+
+    private static final int NO_OPTION = -1;
+
+    private final Operation operation;
+    private final AccountType accountType;
+    private final String firstName;
+    private final String lastName;
+    private final Date dob;
+    private final long amount;
+    private final int option;
+
+    /**
+    Creates a request; use the factory methods.
+    @param operation the operation.
+    @param accountType the account type.
+    @param firstName the holder's first name.
+    @param lastName the holder's last name.
+    @param dob the holder's date of birth.
+    @param amount the amount in cents.
+    @param option the campus code or loyal code, NO_OPTION for other account types.
+    */
+    private TransactionRequest(Operation operation, AccountType accountType, String firstName, String lastName, Date dob, long amount, int option) {
+        this.operation = operation;
+        this.accountType = accountType;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.dob = dob;
+        this.amount = amount;
+        this.option = option;
+    }
+
+    /**
+    Asks to open or reopen an account.
+    @param accountType the account type.
+    @param firstName the holder's first name.
+    @param lastName the holder's last name.
+    @param dob the holder's date of birth.
+    @param initialDeposit the opening balance in cents.
+    @param option the campus code for college checking, the loyal code for savings, ignored otherwise.
+    @return TransactionRequest the request.
+    */
+    public static TransactionRequest open(AccountType accountType, String firstName, String lastName, Date dob, long initialDeposit, int option) {
+        return new TransactionRequest(Operation.OPEN, accountType, firstName, lastName, dob, initialDeposit, option);
+    }
+
+    /**
+    Asks to close an account.
+    @param accountType the account type.
+    @param firstName the holder's first name.
+    @param lastName the holder's last name.
+    @param dob the holder's date of birth.
+    @return TransactionRequest the request.
+    */
+    public static TransactionRequest close(AccountType accountType, String firstName, String lastName, Date dob) {
+        return new TransactionRequest(Operation.CLOSE, accountType, firstName, lastName, dob, 0, NO_OPTION);
+    }
+
+    /**
+    Asks to deposit into an account.
+    @param accountType the account type.
+    @param firstName the holder's first name.
+    @param lastName the holder's last name.
+    @param dob the holder's date of birth.
+    @param amount the amount in cents.
+    @return TransactionRequest the request.
+    */
+    public static TransactionRequest deposit(AccountType accountType, String firstName, String lastName, Date dob, long amount) {
+        return new TransactionRequest(Operation.DEPOSIT, accountType, firstName, lastName, dob, amount, NO_OPTION);
+    }
+
+    /**
+    Asks to withdraw from an account.
+    @param accountType the account type.
+    @param firstName the holder's first name.
+    @param lastName the holder's last name.
+    @param dob the holder's date of birth.
+    @param amount the amount in cents.
+    @return TransactionRequest the request.
+    */
+    public static TransactionRequest withdraw(AccountType accountType, String firstName, String lastName, Date dob, long amount) {
+        return new TransactionRequest(Operation.WITHDRAW, accountType, firstName, lastName, dob, amount, NO_OPTION);
+    }
+
+    /**
+    Returns the operation.
+    @return Operation the operation.
+    */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+    Returns the account type.
+    @return AccountType the account type, null if none was chosen.
+    */
+    public AccountType getAccountType() {
+        return accountType;
+    }
+
+    /**
+    Returns the holder's first name as typed.
+    @return String the first name.
+    */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+    Returns the holder's last name as typed.
+    @return String the last name.
+    */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+    Returns the holder's date of birth.
+    @return Date the date of birth, null if none was given.
+    */
+    public Date getDob() {
+        return dob;
+    }
+
+    /**
+    Returns the opening balance, deposit or withdrawal.
+    @return long the amount in cents.
+    */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+    Returns the campus code or loyal code.
+    @return int the code, -1 if none was chosen.
+    */
+    public int getOption() {
+        return option;
+    }
+}
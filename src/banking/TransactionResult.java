@@ -0,0 +1,63 @@
+package banking;
+
+/**
+The outcome of a TransactionService call: whether it succeeded, and the message to show the teller.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public final class TransactionResult {
+    private final boolean success;
+    private final String message;
+
+    /**
+    Creates a result; use the factory methods.
+    @param success whether the operation was carried out.
+    @param message the message to show.
+    */
+    private TransactionResult(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    /**
+    Creates the result of an operation that was carried out.
+    @param message the message to show, such as "Account opened."
+    @return TransactionResult the result.
+    */
+    public static TransactionResult success(String message) {
+        return new TransactionResult(true, message);
+    }
+
+    /**
+    Creates the result of an operation that was refused.
+    @param message the reason, such as "Date of birth invalid."
+    @return TransactionResult the result.
+    */
+    public static TransactionResult failure(String message) {
+        return new TransactionResult(false, message);
+    }
+
+    /**
+    Tells whether the operation was carried out.
+    @return true if it was, false if it was refused.
+    */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+    Returns the message to show the teller.
+    @return String the message.
+    */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+    Returns the message to show the teller.
+    @return String the message.
+    */
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,327 @@
+package banking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+The teller's business rules, free of any user interface.
+Checks each request, applies it to an AccountStore and reports the outcome with the teller's messages.
+BankTellerController and BatchTeller are thin adapters that turn their input into requests.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class TransactionService {
+
+    /**
+    The account listings a teller can ask for.
+    */
+    public enum Report {
+        ALL, BY_TYPE, FEE_AND_INTEREST, UPDATED_BALANCES
+    }
+
+    private static final int ACCOUNT_NOT_FOUND = -1;
+    private static final int NEW_BRUN_CODE = 0;
+    private static final int CAMDEN_CODE = 2;
+    private static final int LOYAL_CODE = 1;
+    private static final int NON_LOYAL_CODE = 0;
+    private static final long MIN_DEPOSIT = 250000; //$2,500.00 in cents
+    private static final char LINE_END = '\n';
+
+    private final AccountStore database;
+    private Date today; //null to read the clock for every request
+
+    /**
+    Creates a service working on the given store.
+    @param database the store requests are applied to, such as an AccountDatabase.
+    */
+    public TransactionService(AccountStore database) {
+        this.database = database;
+    }
+
+    /**
+    Returns the store requests are applied to.
+    @return AccountStore the store.
+    */
+    public AccountStore getDatabase() {
+        return database;
+    }
+
+    /**
+    Fixes the date that dates of birth are checked against, so a long batch does not read the clock per request.
+    @param today the date to use, null to use the current date.
+    */
+    public void setToday(Date today) {
+        this.today = today;
+    }
+
+    /**
+    Returns the date that dates of birth are checked against.
+    @return Date today.
+    */
+    private Date today() {
+        return today != null ? today : Date.today();
+    }
+
+    /**
+    Checks a request and applies it to the database.
+    A change that cannot be journaled is not made, and is reported as a failure.
+    @param request the request.
+    @return TransactionResult the outcome and the message to show.
+    */
+    public TransactionResult execute(TransactionRequest request) {
+        try {
+            switch(request.getOperation()) {
+            case OPEN:
+                return open(request);
+            case CLOSE:
+                return close(request);
+            case DEPOSIT:
+                return deposit(request);
+            default:
+                return withdraw(request);
+            }
+        } catch(IllegalArgumentException | UncheckedIOException e) {
+            return notRecorded(e);
+        }
+    }
+
+    /**
+    Reports a change the journal refused or could not write.
+    @param e the exception thrown by the journal.
+    @return TransactionResult the failure.
+    */
+    private static TransactionResult notRecorded(RuntimeException e) {
+        return TransactionResult.failure("Transaction not recorded: " + e.getMessage());
+    }
+
+    /**
+    Capitalizes a name the way the teller screen does.
+    @param name the name as typed.
+    @return String the name with only its first letter in upper case.
+    */
+    private static String capitalize(String name) {
+        return name.substring(0, 1).toUpperCase() + name.substring(1).toLowerCase();
+    }
+
+    /**
+    Tells whether the request lacks a name, date of birth or account type.
+    @param request the request.
+    @return true if something is missing, false otherwise.
+    */
+    private static boolean isMissingData(TransactionRequest request) {
+        return request.getFirstName() == null || request.getFirstName().isEmpty() || request.getLastName() == null
+                || request.getLastName().isEmpty() || request.getDob() == null || request.getAccountType() == null;
+    }
+
+    /**
+    Builds the holder's profile from a request.
+    @param request the request.
+    @return Profile the holder, with capitalized names, shared with the holder's accounts if there are any.
+    */
+    private Profile holder(TransactionRequest request) {
+        return database.customer(new Profile(capitalize(request.getFirstName()), capitalize(request.getLastName()), request.getDob()));
+    }
+
+    /**
+    Names an account type the way the teller screen does in its messages.
+    @param type the account type.
+    @return String the name.
+    */
+    private static String typeName(AccountType type) {
+        switch(type) {
+        case COLLEGE_CHECKING:
+            return "College Checking";
+        case MONEY_MARKET:
+            return "Money Market";
+        default:
+            return type.getName();
+        }
+    }
+
+    /**
+    Opens or reopens an account.
+    A holder can have a checking or a college checking account, not both; the database enforces it.
+    @param request the open request.
+    @return TransactionResult the outcome.
+    */
+    private TransactionResult open(TransactionRequest request) {
+        if(isMissingData(request)) {
+            return TransactionResult.failure("Missing data for opening an account.");
+        }
+        Date dob = request.getDob();
+        if(!dob.isValid() || dob.compareTo(today()) > 0) {
+            return TransactionResult.failure("Date of birth invalid.");
+        }
+        long balance = request.getAmount();
+        if(balance <= 0) {
+            return TransactionResult.failure("Initial deposit cannot be 0 or negative.");
+        }
+        Profile holder = holder(request);
+        Account account;
+        switch(request.getAccountType()) {
+        case CHECKING:
+            account = new Checking(holder, false, balance);
+            break;
+        case COLLEGE_CHECKING:
+            if(request.getOption() < NEW_BRUN_CODE || request.getOption() > CAMDEN_CODE) {
+                return TransactionResult.failure("Invalid campus code.");
+            }
+            account = new CollegeChecking(holder, false, balance, request.getOption());
+            break;
+        case SAVINGS:
+            if(request.getOption() != LOYAL_CODE && request.getOption() != NON_LOYAL_CODE) {
+                return TransactionResult.failure("Invalid loyal code.");
+            }
+            account = new Savings(holder, false, balance, request.getOption());
+            break;
+        case MONEY_MARKET:
+            if(balance < MIN_DEPOSIT) {
+                return TransactionResult.failure("Minimum of $2500 to open a MoneyMarket account.");
+            }
+            account = new MoneyMarket(holder, false, balance);
+            break;
+        default:
+            return TransactionResult.failure("Invalid account type.");
+        }
+        boolean exists = database.findAcc(AccountKey.of(account)) != ACCOUNT_NOT_FOUND;
+        if(!database.open(account)) {
+            return TransactionResult.failure(holder + " same account(type) is in the database.");
+        }
+        return TransactionResult.success(exists ? "Account reopened." : "Account opened.");
+    }
+
+    /**
+    Closes an account.
+    @param request the close request.
+    @return TransactionResult the outcome.
+    */
+    private TransactionResult close(TransactionRequest request) {
+        if(isMissingData(request)) {
+            return TransactionResult.failure("Missing data for closing an account.");
+        }
+        Date dob = request.getDob();
+        if(!dob.isValid() || dob.compareTo(today()) > 0) {
+            return TransactionResult.failure("Date of birth invalid.");
+        }
+        AccountKey key = new AccountKey(holder(request), request.getAccountType());
+        if(database.findAcc(key) == ACCOUNT_NOT_FOUND) {
+            return TransactionResult.failure("Account not in database.");
+        }
+        if(!database.close(key)) {
+            return TransactionResult.failure("Account is closed already.");
+        }
+        return TransactionResult.success("Account closed.");
+    }
+
+    /**
+    Checks a deposit or withdrawal request.
+    @param request the request.
+    @param operation "Deposit" or "Withdraw", used in the messages.
+    @return TransactionResult the reason the request is refused, or null if it may go ahead.
+    */
+    private TransactionResult checkAmountRequest(TransactionRequest request, String operation) {
+        if(isMissingData(request)) {
+            return TransactionResult.failure("Missing data for depositing or withdrawing.");
+        }
+        Date dob = request.getDob();
+        if(!dob.isValid() || dob.compareTo(today()) >= 0) {
+            return TransactionResult.failure("Date of birth invalid.");
+        }
+        if(request.getAmount() <= 0) {
+            return TransactionResult.failure(operation + " - amount cannot be 0 or negative.");
+        }
+        return null;
+    }
+
+    /**
+    Deposits into an account.
+    @param request the deposit request.
+    @return TransactionResult the outcome.
+    */
+    private TransactionResult deposit(TransactionRequest request) {
+        TransactionResult refused = checkAmountRequest(request, "Deposit");
+        if(refused != null) {
+            return refused;
+        }
+        Profile holder = holder(request);
+        AccountKey key = new AccountKey(holder, request.getAccountType());
+        if(!database.deposit(key, request.getAmount())) {
+            return TransactionResult.failure(holder + " " + typeName(request.getAccountType()) + " is not in the database.");
+        }
+        return TransactionResult.success("Deposit - balance updated.");
+    }
+
+    /**
+    Withdraws from an account.
+    @param request the withdrawal request.
+    @return TransactionResult the outcome.
+    */
+    private TransactionResult withdraw(TransactionRequest request) {
+        TransactionResult refused = checkAmountRequest(request, "Withdraw");
+        if(refused != null) {
+            return refused;
+        }
+        Profile holder = holder(request);
+        AccountKey key = new AccountKey(holder, request.getAccountType());
+        if(database.findAcc(key) == ACCOUNT_NOT_FOUND) {
+            return TransactionResult.failure(holder + " " + typeName(request.getAccountType()) + " is not in the database.");
+        }
+        if(!database.withdraw(key, request.getAmount())) {
+            return TransactionResult.failure("Withdraw - insufficient fund.");
+        }
+        return TransactionResult.success("Withdraw - balance updated.");
+    }
+
+    /**
+    Runs the month-end update on every account, spread over the available processors.
+    @return TransactionResult the outcome; its message is the reason when the month-end could not be journaled.
+    */
+    public TransactionResult updateBalances() {
+        try {
+            database.updateBalances(Date.today().toPeriod(), Runtime.getRuntime().availableProcessors());
+        } catch(UncheckedIOException e) {
+            return notRecorded(e);
+        }
+        return TransactionResult.success("");
+    }
+
+    /**
+    Writes an account listing as text, updating the balances first for UPDATED_BALANCES.
+    Used by BatchTeller; the teller screen shows the same listings in its account table.
+    Nothing is written when the database is empty.
+    @param report the listing to write.
+    @param out where to write it.
+    @return TransactionResult the outcome; its message is the reason when the database is empty or the month-end could not be journaled.
+    @throws IOException if writing to the output fails.
+    */
+    public TransactionResult report(Report report, Appendable out) throws IOException {
+        if(database.sizeOfDatabase() == 0) {
+            return TransactionResult.failure("Account Database is empty!");
+        }
+        switch(report) {
+        case ALL:
+            out.append("*list of accounts in the database*").append(LINE_END);
+            database.print(out);
+            out.append("*end of list*").append(LINE_END);
+            break;
+        case BY_TYPE:
+            out.append("*list of accounts by account type.").append(LINE_END);
+            database.printByAccountType(out);
+            out.append("*end of list.").append(LINE_END);
+            break;
+        case FEE_AND_INTEREST:
+            out.append("*list of accounts with fee and monthly interest").append(LINE_END);
+            database.printFeeAndInterest(out);
+            out.append("*end of list.").append(LINE_END);
+            break;
+        default:
+            TransactionResult updated = updateBalances();
+            if(!updated.isSuccess()) {
+                return updated;
+            }
+            out.append("*list of accounts with updated balance").append(LINE_END);
+            database.print(out);
+            out.append("*end of list.").append(LINE_END);
+        }
+        return TransactionResult.success("");
+    }
+}
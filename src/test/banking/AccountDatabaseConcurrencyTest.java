@@ -0,0 +1,404 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+Concurrency tests for AccountDatabase, run by many tellers at once.
+Checks that money is neither made nor lost by racing deposits, withdrawals and transfers,
+that the journal holds a history which replays to the same balances, that accounts opened at once
+are journaled in the order they are added, that no holder gets both a checking and a college checking
+account from two tellers at once, that an image taken while
+tellers work is a single point in time, and that a listing by type never misses an account opened
+while another listing was being built.
+Run with java after compiling src/banking and src/test together; exits with status 1 if a test fails.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountDatabaseConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ACCOUNTS = 64;
+    private static final int OPERATIONS = 20000; //per thread
+    private static final long OPENING_BALANCE = 1000000; //$10,000.00 in cents
+    private static final int MAX_AMOUNT = 50000; //$500.00 in cents
+    private static final int ROUNDS = 50;
+    private static final int ACCOUNTS_BEFORE_ROUND = 20000; //so building a listing takes long enough to race with
+    private static final int OPENS_PER_ROUND = 20;
+    private static final long MAX_PAUSE_NANOS = 2000000; //between opens, to land them at different points of a listing
+    private static final int DEPOSIT = 0;
+    private static final int WITHDRAW = 1;
+    private static final int OPERATION_KINDS = 3; //deposit, withdraw, transfer
+    private static final int IMAGES = 200;
+    private static final int OPENS_PER_THREAD = 300;
+    private static final int RIVAL_HOLDERS = 20000;
+    private static final int COLLEGE_DEPOSIT = 10000; //$100.00 in cents
+    private static final Date DOB = new Date("1/2/1990");
+
+    private int failures;
+
+    /**
+    Runs every test and reports each result.
+    @param args not used.
+    @throws Exception if a test cannot be set up.
+    */
+    public static void main(String[] args) throws Exception {
+        AccountDatabaseConcurrencyTest test = new AccountDatabaseConcurrencyTest();
+        test.conservesMoneyAndReplaysToSameBalances();
+        test.imageIsOnePointInTime();
+        test.concurrentOpensReplayInOrder();
+        test.holderNeverGetsBothCheckingAccounts();
+        test.listingByTypeSeesEveryOpenedAccount();
+        if(test.failures > 0) {
+            System.out.println(test.failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All checks passed.");
+    }
+
+    /**
+    Records the outcome of one check.
+    @param name what was checked.
+    @param passed whether it held.
+    */
+    private void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+    Builds the key of the test account with the given number.
+    @param number the account number.
+    @return AccountKey the key of a Checking account held by a made-up customer.
+    */
+    private static AccountKey keyOf(int number) {
+        return new AccountKey(new Profile("Holder" + number, "Test", DOB), AccountType.CHECKING);
+    }
+
+    /**
+    Adds up the balances of the test accounts.
+    @param database the database holding them.
+    @return long the total in cents.
+    */
+    private static long total(AccountDatabase database) {
+        long total = 0;
+        for(int i = 0; i < ACCOUNTS; i++) {
+            total += balanceOf(database, i);
+        }
+        return total;
+    }
+
+    /**
+    Reads the balance of a test account.
+    @param database the database holding it.
+    @param number the account number.
+    @return long the balance in cents.
+    */
+    private static long balanceOf(AccountDatabase database, int number) {
+        return database.accountsOf(keyOf(number).getHolder()).get(0).balance;
+    }
+
+    /**
+    Races deposits, withdrawals and transfers on a journaled database, then checks that the total
+    moved by exactly the deposits minus the withdrawals that succeeded, that no balance went negative,
+    and that replaying the journal, the order the changes were made in, gives every account the same balance.
+    @throws Exception if the journal cannot be used or a thread is interrupted.
+    */
+    private void conservesMoneyAndReplaysToSameBalances() throws Exception {
+        Path file = Files.createTempFile("concurrency", ".journal");
+        Files.delete(file);
+        try {
+            AccountDatabase database = new AccountDatabase();
+            TransactionJournal journal = new TransactionJournal(file);
+            database.setJournal(journal);
+            for(int i = 0; i < ACCOUNTS; i++) {
+                database.open(new Checking(keyOf(i).getHolder(), false, OPENING_BALANCE));
+            }
+            long [] netDeposits = new long[THREADS];
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> tellers = new ArrayList<Thread>();
+            for(int t = 0; t < THREADS; t++) {
+                int teller = t;
+                Thread thread = new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(teller);
+                    AccountKey [] keys = new AccountKey[ACCOUNTS];
+                    for(int i = 0; i < ACCOUNTS; i++) {
+                        keys[i] = keyOf(i);
+                    }
+                    awaitQuietly(start);
+                    for(int n = 0; n < OPERATIONS; n++) {
+                        AccountKey key = keys[random.nextInt(ACCOUNTS)];
+                        long amount = 1 + random.nextInt(MAX_AMOUNT);
+                        int operation = random.nextInt(OPERATION_KINDS);
+                        if(operation == DEPOSIT) {
+                            if(database.deposit(key, amount)) {
+                                netDeposits[teller] += amount;
+                            }
+                        } else if(operation == WITHDRAW) {
+                            if(database.withdraw(key, amount)) {
+                                netDeposits[teller] -= amount;
+                            }
+                        } else {
+                            database.transfer(key, keys[random.nextInt(ACCOUNTS)], amount);
+                        }
+                    }
+                });
+                tellers.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for(Thread thread : tellers) {
+                thread.join();
+            }
+            long expected = OPENING_BALANCE * ACCOUNTS;
+            for(long net : netDeposits) {
+                expected += net;
+            }
+            check("total equals opening balances plus net deposits", total(database) == expected);
+            boolean positive = true;
+            for(int i = 0; i < ACCOUNTS; i++) {
+                positive &= balanceOf(database, i) > 0;
+            }
+            check("no balance goes to zero or below", positive);
+            journal.close();
+            AccountDatabase replayed = new AccountDatabase();
+            try(TransactionJournal history = new TransactionJournal(file)) {
+                history.replay(replayed);
+            }
+            boolean same = true;
+            for(int i = 0; i < ACCOUNTS; i++) {
+                same &= balanceOf(database, i) == balanceOf(replayed, i);
+            }
+            check("journal replays to the same balances", same);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+    Opens new accounts from many tellers on a journaled database, then checks that every one can be found
+    and that replaying the journal lists them in the same order as the database.
+    @throws Exception if the journal cannot be used or a thread is interrupted.
+    */
+    private void concurrentOpensReplayInOrder() throws Exception {
+        Path file = Files.createTempFile("opens", ".journal");
+        Files.delete(file);
+        try {
+            AccountDatabase database = new AccountDatabase();
+            TransactionJournal journal = new TransactionJournal(file);
+            database.setJournal(journal);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> tellers = new ArrayList<Thread>();
+            for(int t = 0; t < THREADS; t++) {
+                int teller = t;
+                Thread thread = new Thread(() -> {
+                    awaitQuietly(start);
+                    for(int i = 0; i < OPENS_PER_THREAD; i++) {
+                        database.open(new Checking(keyOf(teller * OPENS_PER_THREAD + i).getHolder(), false, OPENING_BALANCE));
+                    }
+                });
+                tellers.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for(Thread thread : tellers) {
+                thread.join();
+            }
+            boolean found = true;
+            for(int i = 0; i < THREADS * OPENS_PER_THREAD; i++) {
+                found &= database.findAcc(keyOf(i)) >= 0;
+            }
+            check("every account opened at once can be found", found && database.sizeOfDatabase() == THREADS * OPENS_PER_THREAD);
+            journal.close();
+            AccountDatabase replayed = new AccountDatabase();
+            try(TransactionJournal history = new TransactionJournal(file)) {
+                history.replay(replayed);
+            }
+            check("journal replays opens in the order they were added", printAll(database).equals(printAll(replayed)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+    Has one teller open a Checking account and another a College Checking account for each of many holders,
+    both going through the same holders in the same order, then checks that no holder got both.
+    @throws Exception if a thread is interrupted.
+    */
+    private void holderNeverGetsBothCheckingAccounts() throws Exception {
+        AccountDatabase database = new AccountDatabase();
+        TransactionService service = new TransactionService(database);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread checking = new Thread(() -> {
+            awaitQuietly(start);
+            for(int i = 0; i < RIVAL_HOLDERS; i++) {
+                service.execute(TransactionRequest.open(AccountType.CHECKING, "Holder" + i, "Test", DOB, OPENING_BALANCE, 0));
+            }
+        });
+        Thread college = new Thread(() -> {
+            awaitQuietly(start);
+            for(int i = 0; i < RIVAL_HOLDERS; i++) {
+                service.execute(TransactionRequest.open(AccountType.COLLEGE_CHECKING, "Holder" + i, "Test", DOB, COLLEGE_DEPOSIT, 0));
+            }
+        });
+        checking.start();
+        college.start();
+        start.countDown();
+        checking.join();
+        college.join();
+        int both = 0;
+        for(int i = 0; i < RIVAL_HOLDERS; i++) {
+            if(database.accountsOf(keyOf(i).getHolder()).size() > 1) {
+                both++;
+            }
+        }
+        check("no holder gets both a checking and a college checking account (" + both + " of " + RIVAL_HOLDERS + " did)", both == 0);
+    }
+
+    /**
+    Lists a database in its own order into a string.
+    @param database the database.
+    @return String the listing.
+    */
+    private static String printAll(AccountDatabase database) {
+        StringBuilder out = new StringBuilder();
+        try {
+            database.print(out);
+        } catch(IOException e) {
+            throw new IllegalStateException("A StringBuilder cannot fail.", e);
+        }
+        return out.toString();
+    }
+
+    /**
+    Takes images while tellers only transfer between the test accounts, which keeps the total fixed,
+    then checks that every image adds up to that total. An image mixing balances from before and after
+    a transfer would not.
+    @throws Exception if a thread is interrupted.
+    */
+    private void imageIsOnePointInTime() throws Exception {
+        AccountDatabase database = new AccountDatabase();
+        for(int i = 0; i < ACCOUNTS; i++) {
+            database.open(new Checking(keyOf(i).getHolder(), false, OPENING_BALANCE));
+        }
+        AtomicBoolean transferring = new AtomicBoolean(true);
+        List<Thread> tellers = new ArrayList<Thread>();
+        for(int t = 0; t < THREADS; t++) {
+            int teller = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(teller);
+                AccountKey [] keys = new AccountKey[ACCOUNTS];
+                for(int i = 0; i < ACCOUNTS; i++) {
+                    keys[i] = keyOf(i);
+                }
+                while(transferring.get()) {
+                    database.transfer(keys[random.nextInt(ACCOUNTS)], keys[random.nextInt(ACCOUNTS)], 1 + random.nextInt(MAX_AMOUNT));
+                }
+            });
+            tellers.add(thread);
+            thread.start();
+        }
+        int mixed = 0;
+        for(int n = 0; n < IMAGES; n++) {
+            AccountSnapshot image = database.image();
+            long total = 0;
+            for(int i = 0; i < image.size(); i++) {
+                total += image.accountAt(i).balance;
+            }
+            if(total != OPENING_BALANCE * ACCOUNTS) {
+                mixed++;
+            }
+        }
+        transferring.set(false);
+        for(Thread thread : tellers) {
+            thread.join();
+        }
+        check("images taken during transfers hold the same total (" + mixed + " of " + IMAGES + " did not)", mixed == 0);
+    }
+
+    /**
+    Opens accounts while another thread keeps listing by type, then checks that a listing
+    made once both are done shows every account, over many rounds.
+    @throws Exception if a thread is interrupted or the listing cannot be written.
+    */
+    private void listingByTypeSeesEveryOpenedAccount() throws Exception {
+        int missed = 0;
+        for(int round = 0; round < ROUNDS; round++) {
+            AccountDatabase database = new AccountDatabase();
+            for(int i = 0; i < ACCOUNTS_BEFORE_ROUND; i++) {
+                database.open(new Checking(keyOf(i).getHolder(), false, OPENING_BALANCE));
+            }
+            AtomicBoolean opening = new AtomicBoolean(true);
+            SplittableRandom random = new SplittableRandom(round);
+            Thread opener = new Thread(() -> {
+                for(int i = 0; i < OPENS_PER_ROUND; i++) {
+                    LockSupport.parkNanos(random.nextLong(MAX_PAUSE_NANOS));
+                    database.open(new Savings(keyOf(i).getHolder(), false, OPENING_BALANCE, 0));
+                }
+                opening.set(false);
+            });
+            Thread lister = new Thread(() -> {
+                while(opening.get()) {
+                    printQuietly(database);
+                }
+            });
+            lister.start();
+            opener.start();
+            opener.join();
+            lister.join();
+            if(lines(printQuietly(database)) != database.sizeOfDatabase()) {
+                missed++;
+            }
+        }
+        check("listing by type shows every account opened during earlier listings (" + missed + " of " + ROUNDS + " rounds missed one)", missed == 0);
+    }
+
+    /**
+    Lists a database by type into a string.
+    @param database the database.
+    @return String the listing.
+    */
+    private static String printQuietly(AccountDatabase database) {
+        StringBuilder out = new StringBuilder();
+        try {
+            database.printByAccountType(out);
+        } catch(IOException e) {
+            throw new IllegalStateException("A StringBuilder cannot fail.", e);
+        }
+        return out.toString();
+    }
+
+    /**
+    Counts the lines of a listing.
+    @param listing the listing, one account per line.
+    @return int the number of lines.
+    */
+    private static int lines(String listing) {
+        int count = 0;
+        for(int i = 0; i < listing.length(); i++) {
+            if(listing.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+    Waits for the start signal, so every teller begins at once.
+    @param start the latch counted down by the main thread.
+    */
+    private static void awaitQuietly(CountDownLatch start) {
+        try {
+            start.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+Tests of AccountDatabase run by a single teller.
+Run with java after compiling src/banking and src/test together; exits with status 1 if a test fails.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountDatabaseTest {
+    private static final Date DOB = new Date("1/2/1990");
+    private static final long OPENING_BALANCE = 100000; //$1,000.00 in cents
+    private static final long AMOUNT = 5000; //$50.00 in cents
+
+    private int failures;
+
+    /**
+    Runs every test and reports each result.
+    @param args not used.
+    @throws Exception if a test cannot be set up.
+    */
+    public static void main(String[] args) throws Exception {
+        AccountDatabaseTest test = new AccountDatabaseTest();
+        test.postRefusesClosedAccounts();
+        test.longestNamesAreJournaledAndSnapshotted();
+        if(test.failures > 0) {
+            System.out.println(test.failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All checks passed.");
+    }
+
+    /**
+    Records the outcome of one check.
+    @param name what was checked.
+    @param passed whether it held.
+    */
+    private void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+    Prints every account of a database.
+    @param database the database.
+    @return String one line per account.
+    @throws IOException never, the lines go to a StringBuilder.
+    */
+    private static String printAll(AccountDatabase database) throws IOException {
+        StringBuilder out = new StringBuilder();
+        database.print(out);
+        return out.toString();
+    }
+
+    /**
+    A posted entry for a closed account is refused with POST_CLOSED and leaves the account alone,
+    the way a transfer refuses it, while entries for open accounts in the same batch are posted.
+    @throws IOException never, the accounts are printed to a StringBuilder.
+    */
+    private void postRefusesClosedAccounts() throws IOException {
+        AccountDatabase database = new AccountDatabase();
+        AccountKey open = new AccountKey(new Profile("Open", "Holder", DOB), AccountType.CHECKING);
+        AccountKey closed = new AccountKey(new Profile("Closed", "Holder", DOB), AccountType.CHECKING);
+        database.open(new Checking(open.getHolder(), false, OPENING_BALANCE));
+        database.open(new Checking(closed.getHolder(), false, OPENING_BALANCE));
+        database.close(closed);
+        String before = printAll(database);
+        int [] ids = { database.findAcc(closed), database.findAcc(open), database.findAcc(closed) };
+        long [] amounts = { AMOUNT, AMOUNT, AMOUNT };
+        byte [] operations = { AccountDatabase.POST_DEPOSIT, AccountDatabase.POST_DEPOSIT, AccountDatabase.POST_WITHDRAW };
+        byte [] results = new byte[ids.length];
+        int posted = database.post(ids, amounts, operations, ids.length, results);
+        check("only the open account's entry is posted", posted == 1 && results[1] == AccountDatabase.POSTED);
+        check("both entries for the closed account are POST_CLOSED",
+            results[0] == AccountDatabase.POST_CLOSED && results[2] == AccountDatabase.POST_CLOSED);
+        check("transfer refuses the closed account too", !database.transfer(open, closed, AMOUNT));
+        String after = printAll(database);
+        String closedLine = before.split("\n")[1];
+        check("the closed account is unchanged", after.split("\n")[1].equals(closedLine));
+    }
+
+    /**
+    Names up to MAX_NAME_BYTES in UTF-8 survive the journal and a snapshot, even in a transfer, whose record
+    holds four names; a longer name is refused before anything is recorded.
+    @throws IOException if the journal or snapshot cannot be written or read.
+    */
+    private void longestNamesAreJournaledAndSnapshotted() throws IOException {
+        Path directory = Files.createTempDirectory("names");
+        Path journalFile = directory.resolve("accounts.journal");
+        Path snapshotFile = directory.resolve("accounts.snapshot");
+        String longest = "x".repeat(AccountDatabase.MAX_NAME_BYTES);
+        String longestAccented = "\u00e9".repeat(AccountDatabase.MAX_NAME_BYTES / 2) + "x"; //two bytes per \u00e9
+        AccountDatabase database = new AccountDatabase();
+        TransactionJournal journal = new TransactionJournal(journalFile);
+        journal.replay(database);
+        database.setJournal(journal);
+        AccountKey from = new AccountKey(new Profile(longest, longestAccented, DOB), AccountType.CHECKING);
+        AccountKey to = new AccountKey(new Profile(longestAccented, longest, DOB), AccountType.CHECKING);
+        database.open(new Checking(from.getHolder(), false, OPENING_BALANCE));
+        database.open(new Checking(to.getHolder(), false, OPENING_BALANCE));
+        check("a transfer between holders with the longest names is journaled", database.transfer(from, to, AMOUNT));
+        boolean refused = false;
+        try {
+            database.open(new Checking(new Profile(longest + "x", "Holder", DOB), false, OPENING_BALANCE));
+        } catch(IllegalArgumentException e) {
+            refused = true;
+        }
+        check("a name one byte too long is refused", refused && database.sizeOfDatabase() == 2);
+        String expected = printAll(database);
+        database.image().write(snapshotFile);
+        journal.close();
+        AccountDatabase fromSnapshot = new AccountDatabase();
+        AccountSnapshot.read(snapshotFile).restore(fromSnapshot);
+        check("the snapshot reads back the longest names", printAll(fromSnapshot).equals(expected));
+        AccountDatabase replayed = new AccountDatabase();
+        TransactionJournal reopened = new TransactionJournal(journalFile);
+        reopened.replay(replayed);
+        reopened.close();
+        check("the journal replays the longest names", printAll(replayed).equals(expected));
+        Files.delete(journalFile);
+        Files.delete(snapshotFile);
+        Files.delete(directory);
+    }
+}
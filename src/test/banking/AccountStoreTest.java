@@ -0,0 +1,148 @@
+package banking;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+Checks that every AccountStore gives a command feed the same replies as AccountDatabase,
+including the account listings, the fee and interest listing and the month-end update,
+and that a MappedAccountDatabase closed and opened again carries on where it stopped.
+Run with java after compiling src/banking and src/test together; exits with status 1 if a test fails.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class AccountStoreTest {
+    private static final long SEED = 7;
+    private static final int COMMANDS = 20000;
+    private static final int HOLDERS = 300;
+    private static final int MAX_DOLLARS = 6000;
+    private static final int LISTING_ONE_IN = 500; //commands per P, PT, PI or UB on average
+    private static final String [] TYPES = { "C", "CC", "S", "MM" };
+    private static final String [] CHANGES = { "O", "O", "C", "D", "D", "D", "W", "W", "W" };
+    private static final String [] LISTINGS = { "P", "PT", "PI", "UB" };
+    private static final String [] DOBS = { "1/2/1990", "3/4/1980", "12/31/1999" };
+    private static final int CAMPUS_CODES = 3;
+    private static final int LOYAL_CODES = 2;
+
+    private int failures;
+
+    /**
+    Runs every test and reports each result.
+    @param args not used.
+    @throws Exception if a test cannot be set up.
+    */
+    public static void main(String[] args) throws Exception {
+        AccountStoreTest test = new AccountStoreTest();
+        test.columnarRepliesLikeObjects();
+        test.mappedRepliesLikeObjectsAcrossReopen();
+        if(test.failures > 0) {
+            System.out.println(test.failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All checks passed.");
+    }
+
+    /**
+    Records the outcome of one check.
+    @param name what was checked.
+    @param passed whether it held.
+    */
+    private void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+    Builds a feed of opens, closes, deposits and withdrawals on a few hundred holders,
+    with a listing or month-end update now and then and every listing at the end.
+    @return String the commands, one per line.
+    */
+    static String feed() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder commands = new StringBuilder();
+        for(int i = 0; i < COMMANDS; i++) {
+            if(random.nextInt(LISTING_ONE_IN) == 0) {
+                commands.append(LISTINGS[random.nextInt(LISTINGS.length)]).append('\n');
+                continue;
+            }
+            String command = CHANGES[random.nextInt(CHANGES.length)];
+            String type = TYPES[random.nextInt(TYPES.length)];
+            int holder = random.nextInt(HOLDERS);
+            commands.append(command).append(' ').append(type).append(" Holder").append(holder).append(" Test ")
+                .append(DOBS[holder % DOBS.length]);
+            if(!command.equals("C")) {
+                commands.append(' ').append(random.nextInt(MAX_DOLLARS)).append('.').append(random.nextInt(100));
+            }
+            if(command.equals("O") && type.equals("CC")) {
+                commands.append(' ').append(random.nextInt(CAMPUS_CODES));
+            } else if(command.equals("O") && type.equals("S")) {
+                commands.append(' ').append(random.nextInt(LOYAL_CODES));
+            }
+            commands.append('\n');
+        }
+        for(String listing : LISTINGS) {
+            commands.append(listing).append('\n');
+        }
+        return commands.toString();
+    }
+
+    /**
+    Runs commands on a store.
+    @param store the store, empty or holding accounts from an earlier run.
+    @param commands the command lines.
+    @return String the replies, one per line.
+    @throws IOException if the replies cannot be written.
+    */
+    static String run(AccountStore store, String commands) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new BatchTeller(store).run(new StringReader(commands), out);
+        return out.toString();
+    }
+
+    /**
+    The columnar store opens, changes, lists and updates accounts exactly as the object store does.
+    @throws IOException if the replies cannot be written.
+    */
+    private void columnarRepliesLikeObjects() throws IOException {
+        String commands = feed();
+        String expected = run(new AccountDatabase(), commands);
+        check("the feed lists fees and interest and updates balances",
+            expected.contains("monthly interest") && expected.contains("*list of accounts with updated balance"));
+        check("columnar store replies like AccountDatabase", run(new ColumnarAccountDatabase(), commands).equals(expected));
+    }
+
+    /**
+    The mapped store replies like the object store, both when it runs the whole feed and when it is closed
+    half way through and the rest of the feed runs on the file opened again.
+    @throws IOException if the account file cannot be written or read.
+    */
+    private void mappedRepliesLikeObjectsAcrossReopen() throws IOException {
+        String commands = feed();
+        String expected = run(new AccountDatabase(), commands);
+        Path directory = Files.createTempDirectory("store");
+        Path whole = directory.resolve("whole.acc");
+        Path reopened = directory.resolve("reopened.acc");
+        try(MappedAccountDatabase store = new MappedAccountDatabase(whole)) {
+            check("mapped store replies like AccountDatabase", run(store, commands).equals(expected));
+        }
+        int half = commands.indexOf('\n', commands.length() / 2) + 1;
+        String replies;
+        int accounts;
+        try(MappedAccountDatabase store = new MappedAccountDatabase(reopened)) {
+            replies = run(store, commands.substring(0, half));
+            accounts = store.sizeOfDatabase();
+        }
+        try(MappedAccountDatabase store = new MappedAccountDatabase(reopened)) {
+            check("the file opened again holds every account", accounts > 0 && store.sizeOfDatabase() == accounts);
+            replies += run(store, commands.substring(half));
+        }
+        check("mapped store closed and opened half way replies like AccountDatabase", replies.equals(expected));
+        Files.delete(whole);
+        Files.delete(reopened);
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,74 @@
+package banking;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+Tests of the teller's rules in TransactionService, fed through BatchTeller the way a command file is.
+Run with java after compiling src/banking and src/test together; exits with status 1 if a test fails.
+@author Dharma Wijesinghe, Min Sun You
+*/
+public class TransactionServiceTest {
+    private int failures;
+
+    /**
+    Runs every test and reports each result.
+    @param args not used.
+    @throws Exception if a test cannot be set up.
+    */
+    public static void main(String[] args) throws Exception {
+        TransactionServiceTest test = new TransactionServiceTest();
+        test.farYearDoesNotNameAnotherHolder();
+        test.closeRefusesFutureDateOfBirth();
+        if(test.failures > 0) {
+            System.out.println(test.failures + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println("All checks passed.");
+    }
+
+    /**
+    Records the outcome of one check.
+    @param name what was checked.
+    @param passed whether it held.
+    */
+    private void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if(!passed) {
+            failures++;
+        }
+    }
+
+    /**
+    Runs commands on a new database.
+    @param commands the command lines.
+    @return String the replies, one per line.
+    @throws IOException if the replies cannot be written.
+    */
+    private static String run(String commands) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new BatchTeller(new AccountDatabase()).run(new StringReader(commands), out);
+        return out.toString();
+    }
+
+    /**
+    A year so large that year * 10000 wraps around used to pack to the same int as a real date of birth,
+    so the holder born then was taken for the real one and their account was closed.
+    @throws IOException if the replies cannot be written.
+    */
+    private void farYearDoesNotNameAnotherHolder() throws IOException {
+        String replies = run("O S John Doe 1/2/1990 500 1\nC S John Doe 1/2/268437446\nP\n");
+        check("a date of birth in year 268437446 is refused", replies.contains("Date of birth invalid."));
+        check("the account born 1/2/1990 stays open", !replies.contains("CLOSED"));
+        check("years past 9999 are not valid", !new Date("1/2/10000").isValid() && new Date("12/31/9999").isValid());
+    }
+
+    /**
+    Closing checks the date of birth the same way opening does.
+    @throws IOException if the replies cannot be written.
+    */
+    private void closeRefusesFutureDateOfBirth() throws IOException {
+        String replies = run("O C John Doe 1/2/1990 500\nC C John Doe 1/2/9999\n");
+        check("close refuses a date of birth in the future", replies.endsWith("Date of birth invalid.\n"));
+    }
+}